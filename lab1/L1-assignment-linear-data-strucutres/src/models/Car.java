@@ -15,6 +15,7 @@ import java.util.Scanner;
 
 import util.Ks;
 import util.Parsable;
+import util.Tokenizer;
 
 public class Car implements Parsable<Car> {
 
@@ -50,6 +51,21 @@ public class Car implements Parsable<Car> {
     @Override
     public final void parse(String data) {
         try { // ed is elementary data separated by spaces
+            Tokenizer ed = new Tokenizer(data);
+            make = ed.next();
+            model = ed.next();
+            year = ed.nextInt();
+            mileage = ed.nextInt();
+            setPrice(ed.nextDouble());
+        } catch (NoSuchElementException e) {
+            // not only plain numbers or missing data: Scanner either reads it or reports the error
+            parseWithScanner(data);
+        }
+    }
+
+    // Scanner also reads the numbers in the formats of the default locale
+    private void parseWithScanner(String data) {
+        try {
             Scanner ed = new Scanner(data);
             make = ed.next();
             model = ed.next();
@@ -2,6 +2,7 @@ package demo;
 
 import utils.Ks;
 import utils.Parsable;
+import utils.Tokenizer;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -78,6 +79,21 @@ public final class Car implements Parsable<Car> {
     @Override
     public void parse(String dataString) {
         try {   // data delimited by spaces
+            Tokenizer tokenizer = new Tokenizer(dataString);
+            make = tokenizer.next();
+            model = tokenizer.next();
+            year = tokenizer.nextInt();
+            setMileage(tokenizer.nextInt());
+            setPrice(tokenizer.nextDouble());
+        } catch (NoSuchElementException e) {
+            // not only plain numbers or missing data: Scanner either reads it or reports the error
+            parseWithScanner(dataString);
+        }
+    }
+
+    // Scanner also reads the numbers in the formats of the default locale
+    private void parseWithScanner(String dataString) {
+        try {
             Scanner scanner = new Scanner(dataString);
             make = scanner.next();
             model = scanner.next();
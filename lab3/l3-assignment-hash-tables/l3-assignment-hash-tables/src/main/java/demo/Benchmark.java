@@ -1,10 +1,15 @@
 package demo;
 
+import utils.CuckooHashMap;
+import utils.FlatHashMapOa;
 import utils.HashManager;
 import utils.HashMap;
+import utils.HashMapOa;
 import utils.Map;
+import utils.SwissHashMapOa;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -67,6 +72,112 @@ public class Benchmark {
         }
     }
 
+    // State for HashMapOa, one map per open addressing type
+    @State(Scope.Benchmark)
+    public static class FullMapOa {
+
+        @Param({"LINEAR", "QUADRATIC", "DOUBLE_HASHING", "ROBIN_HOOD", "HOPSCOTCH"})
+        public HashMapOa.OpenAddressingType oaType;
+
+        List<String> ids;
+        List<Car> cars;
+        HashMapOa<String, Car> carsMap;
+
+        @Setup(Level.Iteration)
+        public void generateIdsAndCars(BenchmarkParams params) {
+            ids = Benchmark.generateIds(Integer.parseInt(params.getParam("elementCount")));
+            cars = Benchmark.generateCars(Integer.parseInt(params.getParam("elementCount")));
+        }
+
+        @Setup(Level.Invocation)
+        public void fillCarMap() {
+            carsMap = newMapOa(oaType);
+            putMappings(ids, cars, carsMap);
+        }
+    }
+
+    // State for FlatHashMapOa, one map per open addressing type
+    @State(Scope.Benchmark)
+    public static class FullFlatMapOa {
+
+        @Param({"LINEAR", "QUADRATIC", "DOUBLE_HASHING"})
+        public HashMapOa.OpenAddressingType oaType;
+
+        List<String> ids;
+        List<Car> cars;
+        FlatHashMapOa<String, Car> carsMap;
+
+        @Setup(Level.Iteration)
+        public void generateIdsAndCars(BenchmarkParams params) {
+            ids = Benchmark.generateIds(Integer.parseInt(params.getParam("elementCount")));
+            cars = Benchmark.generateCars(Integer.parseInt(params.getParam("elementCount")));
+            carsMap = newFlatMapOa(oaType);
+            putMappings(ids, cars, carsMap);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FullSwissMapOa {
+
+        List<String> ids;
+        List<Car> cars;
+        SwissHashMapOa<String, Car> carsMap;
+
+        @Setup(Level.Iteration)
+        public void generateIdsAndCars(BenchmarkParams params) {
+            ids = Benchmark.generateIds(Integer.parseInt(params.getParam("elementCount")));
+            cars = Benchmark.generateCars(Integer.parseInt(params.getParam("elementCount")));
+            carsMap = new SwissHashMapOa<>();
+            putMappings(ids, cars, carsMap);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FullCuckooMap {
+
+        List<String> ids;
+        List<Car> cars;
+        CuckooHashMap<String, Car> carsMap;
+
+        @Setup(Level.Iteration)
+        public void generateIdsAndCars(BenchmarkParams params) {
+            ids = Benchmark.generateIds(Integer.parseInt(params.getParam("elementCount")));
+            cars = Benchmark.generateCars(Integer.parseInt(params.getParam("elementCount")));
+            carsMap = new CuckooHashMap<>();
+            putMappings(ids, cars, carsMap);
+        }
+    }
+
+    // State for the get() latency distributions: the maps are filled once and every operation looks up the next id
+    @State(Scope.Thread)
+    public static class LookupMaps {
+
+        String[] ids;
+        int next = 0;
+        HashMap<String, Car> hashMap;
+        HashMapOa<String, Car> mapOa;
+        CuckooHashMap<String, Car> cuckooMap;
+
+        @Setup(Level.Trial)
+        public void fillMaps(BenchmarkParams params) {
+            List<String> idList = Benchmark.generateIds(Integer.parseInt(params.getParam("elementCount")));
+            List<Car> cars = Benchmark.generateCars(idList.size());
+            ids = idList.toArray(new String[0]);
+            hashMap = new HashMap<>(HashManager.HashType.DIVISION);
+            mapOa = newMapOa(HashMapOa.OpenAddressingType.LINEAR);
+            cuckooMap = new CuckooHashMap<>();
+            putMappings(idList, cars, hashMap);
+            putMappings(idList, cars, mapOa);
+            putMappings(idList, cars, cuckooMap);
+        }
+
+        String nextId() {
+            String id = ids[next];
+            next = next + 1 == ids.length ? 0 : next + 1;
+            return id;
+        }
+    }
+
     @Param({"10000", "20000", "40000", "80000"})
     public int elementCount;
 
@@ -106,6 +217,107 @@ public class Benchmark {
         fullJavaMap.ids.forEach(id -> fullJavaMap.javaMap.remove(id));
     }
 
+    // Benchmark: HashMapOa.put() for every open addressing type
+    @org.openjdk.jmh.annotations.Benchmark
+    public Map<String, Car> putMapOa(FullMapOa fullMapOa) {
+        Map<String, Car> carsMap = newMapOa(fullMapOa.oaType);
+        putMappings(ids, cars, carsMap);
+        return carsMap;
+    }
+
+    // Benchmark: HashMapOa.get() for every open addressing type
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getMapOa(FullMapOa fullMapOa, Blackhole blackhole) {
+        fullMapOa.ids.forEach(id -> blackhole.consume(fullMapOa.carsMap.get(id)));
+    }
+
+    // Benchmark: remove and re-put every second key, then look all keys up (tombstone churn)
+    @org.openjdk.jmh.annotations.Benchmark
+    public void churnMapOa(FullMapOa fullMapOa, Blackhole blackhole) {
+        for (int i = 0; i < fullMapOa.ids.size(); i += 2) {
+            fullMapOa.carsMap.remove(fullMapOa.ids.get(i));
+        }
+        for (int i = 0; i < fullMapOa.ids.size(); i += 2) {
+            fullMapOa.carsMap.put(fullMapOa.ids.get(i), fullMapOa.cars.get(i));
+        }
+        fullMapOa.ids.forEach(id -> blackhole.consume(fullMapOa.carsMap.get(id)));
+        blackhole.consume(fullMapOa.carsMap.getMaxProbeDistance());
+    }
+
+    // Benchmark: FlatHashMapOa.put() for every open addressing type
+    @org.openjdk.jmh.annotations.Benchmark
+    public Map<String, Car> putFlatMapOa(FullFlatMapOa fullFlatMapOa) {
+        Map<String, Car> carsMap = newFlatMapOa(fullFlatMapOa.oaType);
+        putMappings(ids, cars, carsMap);
+        return carsMap;
+    }
+
+    // Benchmark: FlatHashMapOa.get() for every open addressing type, compare with getMapOa
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getFlatMapOa(FullFlatMapOa fullFlatMapOa, Blackhole blackhole) {
+        fullFlatMapOa.ids.forEach(id -> blackhole.consume(fullFlatMapOa.carsMap.get(id)));
+    }
+
+    // Benchmark: SwissHashMapOa.put()
+    @org.openjdk.jmh.annotations.Benchmark
+    public Map<String, Car> putSwissMapOa() {
+        Map<String, Car> carsMap = new SwissHashMapOa<>();
+        putMappings(ids, cars, carsMap);
+        return carsMap;
+    }
+
+    // Benchmark: SwissHashMapOa.get(), compare with getMapOa and getFlatMapOa
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getSwissMapOa(FullSwissMapOa fullSwissMapOa, Blackhole blackhole) {
+        fullSwissMapOa.ids.forEach(id -> blackhole.consume(fullSwissMapOa.carsMap.get(id)));
+    }
+
+    // Benchmark: CuckooHashMap.put()
+    @org.openjdk.jmh.annotations.Benchmark
+    public Map<String, Car> putCuckooMap() {
+        Map<String, Car> carsMap = new CuckooHashMap<>();
+        putMappings(ids, cars, carsMap);
+        return carsMap;
+    }
+
+    // Benchmark: CuckooHashMap.get(), at most two probes per key
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getCuckooMap(FullCuckooMap fullCuckooMap, Blackhole blackhole) {
+        fullCuckooMap.ids.forEach(id -> blackhole.consume(fullCuckooMap.carsMap.get(id)));
+    }
+
+    // Benchmarks: latency distribution of a single get() of HashMap, HashMapOa (linear probing) and CuckooHashMap
+    @org.openjdk.jmh.annotations.Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Car sampleGetMap(LookupMaps lookupMaps) {
+        return lookupMaps.hashMap.get(lookupMaps.nextId());
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Car sampleGetMapOa(LookupMaps lookupMaps) {
+        return lookupMaps.mapOa.get(lookupMaps.nextId());
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Car sampleGetCuckooMap(LookupMaps lookupMaps) {
+        return lookupMaps.cuckooMap.get(lookupMaps.nextId());
+    }
+
+    static FlatHashMapOa<String, Car> newFlatMapOa(HashMapOa.OpenAddressingType oaType) {
+        return new FlatHashMapOa<>(FlatHashMapOa.DEFAULT_INITIAL_CAPACITY, FlatHashMapOa.DEFAULT_LOAD_FACTOR,
+                HashManager.HashType.DIVISION, oaType);
+    }
+
+    static HashMapOa<String, Car> newMapOa(HashMapOa.OpenAddressingType oaType) {
+        return new HashMapOa<>(HashMapOa.DEFAULT_INITIAL_CAPACITY, HashMapOa.DEFAULT_LOAD_FACTOR,
+                HashManager.HashType.DIVISION, oaType);
+    }
+
     public static void putMappings(List<String> ids, List<Car> cars, Map<String, Car> carsMap) {
         for (int i = 0; i < cars.size(); i++) {
             carsMap.put(ids.get(i), cars.get(i));
@@ -114,7 +326,7 @@ public class Benchmark {
 
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
-                .include(Benchmark.class.getSimpleName())
+                .include(Benchmark.class.getName() + "\\.")
                 .forks(1)
                 .build();
         new Runner(opt).run();
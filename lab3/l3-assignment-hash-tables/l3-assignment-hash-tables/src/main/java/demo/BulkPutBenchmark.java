@@ -0,0 +1,91 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.EvaluableMap;
+import utils.HashManager;
+import utils.HashMap;
+import utils.HashMapOa;
+
+import java.util.concurrent.TimeUnit;
+
+// put() one pair at a time versus putAll(), which enlarges the table once before adding the pairs.
+// The counters report the filled maps and their rehashes: rehashes / maps is log2(n / 8) for put(), 0 for putAll().
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class BulkPutBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Rehashes {
+
+        public long maps;
+        public long rehashes;
+
+        public void count(EvaluableMap<?, ?> map) {
+            maps++;
+            rehashes += map.getRehashesCounter();
+        }
+    }
+
+    @Param({"10000", "80000"})
+    public int elementCount;
+
+    String[] ids;
+    Car[] cars;
+
+    @Setup(Level.Trial)
+    public void generateIdsAndCars() {
+        ids = Benchmark.generateIds(elementCount).toArray(new String[0]);
+        cars = Benchmark.generateCars(elementCount).toArray(new Car[0]);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public EvaluableMap<String, Car> putHashMap(Rehashes rehashes) {
+        return putOneByOne(new HashMap<>(HashManager.HashType.DIVISION), rehashes);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public EvaluableMap<String, Car> putAllHashMap(Rehashes rehashes) {
+        return putAll(new HashMap<>(HashManager.HashType.DIVISION), rehashes);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public EvaluableMap<String, Car> putHashMapOa(Rehashes rehashes) {
+        return putOneByOne(new HashMapOa<>(HashManager.HashType.DIVISION), rehashes);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public EvaluableMap<String, Car> putAllHashMapOa(Rehashes rehashes) {
+        return putAll(new HashMapOa<>(HashManager.HashType.DIVISION), rehashes);
+    }
+
+    private EvaluableMap<String, Car> putOneByOne(EvaluableMap<String, Car> carsMap, Rehashes rehashes) {
+        for (int i = 0; i < ids.length; i++) {
+            carsMap.put(ids[i], cars[i]);
+        }
+        rehashes.count(carsMap);
+        return carsMap;
+    }
+
+    private EvaluableMap<String, Car> putAll(EvaluableMap<String, Car> carsMap, Rehashes rehashes) {
+        carsMap.putAll(ids, cars);
+        rehashes.count(carsMap);
+        return carsMap;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BulkPutBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,115 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.BoundedCacheMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// BoundedCacheMap replaying a trace of requests for ids. Every request is a get() and, on a miss,
+// a put() of the car, as a cache in front of a slow source would do. ZIPF requests the ids with Zipf
+// distributed popularity; ZIPF_SCAN also interrupts them with scans of ids requested once, which
+// flush the recently used pairs out of an LRU cache. The trace is the same for all the policies,
+// and the hit rate over all the requests of a trial is printed at its end.
+
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class CacheTraceBenchmark {
+
+    static final int ID_COUNT = 100_000;
+    static final int TRACE_LENGTH = 1 << 20;
+    static final double ZIPF_EXPONENT = 0.9;
+    // ZIPF_SCAN: a scan of SCAN_LENGTH ids after every SCAN_PERIOD requests
+    static final int SCAN_PERIOD = 20_000;
+    static final int SCAN_LENGTH = 5_000;
+
+    public enum Trace {
+        ZIPF,
+        ZIPF_SCAN
+    }
+
+    @Param({"1000", "10000"})
+    public int cacheSize;
+
+    @Param({"LRU", "LFU", "W_TINY_LFU"})
+    public BoundedCacheMap.EvictionPolicy policy;
+
+    @Param({"ZIPF", "ZIPF_SCAN"})
+    public Trace trace;
+
+    String[] requests;
+    Car[] cars;
+    int[] carIndexes;
+    BoundedCacheMap<String, Car> cache;
+    int position = 0;
+
+    @Setup(Level.Trial)
+    public void generateTrace() {
+        List<String> ids = Benchmark.generateIds(ID_COUNT + TRACE_LENGTH / SCAN_PERIOD * SCAN_LENGTH);
+        cars = Benchmark.generateCars(ID_COUNT).toArray(new Car[0]);
+        // ranks of popularity: the ids are shuffled, so the rank is not related to the hash code
+        Collections.shuffle(ids.subList(0, ID_COUNT), new Random(1));
+        double[] cumulative = new double[ID_COUNT];
+        double sum = 0;
+        for (int rank = 0; rank < ID_COUNT; rank++) {
+            sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+
+        Random random = new Random(2);
+        requests = new String[TRACE_LENGTH];
+        carIndexes = new int[TRACE_LENGTH];
+        int scanned = ID_COUNT;
+        for (int i = 0; i < TRACE_LENGTH; i++) {
+            int idIndex;
+            if (trace == Trace.ZIPF_SCAN && i % (SCAN_PERIOD + SCAN_LENGTH) >= SCAN_PERIOD) {
+                idIndex = scanned++;
+            } else {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                idIndex = rank < 0 ? -rank - 1 : rank;
+            }
+            requests[i] = ids.get(idIndex);
+            carIndexes[i] = idIndex % ID_COUNT;
+        }
+        cache = new BoundedCacheMap<>(cacheSize, policy);
+    }
+
+    @TearDown(Level.Trial)
+    public void printHitRate() {
+        long hits = cache.getHitsCounter();
+        long requestCount = hits + cache.getMissesCounter();
+        System.out.printf("%n%s %s %d: hit rate %.3f of %d requests, %d evictions%n", trace, policy, cacheSize,
+                (double) hits / requestCount, requestCount, cache.getEvictionsCounter());
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Car request() {
+        int i = position;
+        position = (i + 1) & (TRACE_LENGTH - 1);
+        String id = requests[i];
+        Car car = cache.get(id);
+        if (car == null) {
+            car = cars[carIndexes[i]];
+            cache.put(id, car);
+        }
+        return car;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CacheTraceBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -2,6 +2,7 @@ package demo;
 
 import utils.Ks;
 import utils.Parsable;
+import utils.Tokenizer;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -67,7 +68,23 @@ public final class Car implements Parsable<Car> {
 
     @Override
     public void parse(String dataString) {
-        try {   // data delimited by spaces
+        try {   // data delimited by spaces, the price with '.' as toDataString() writes it, whatever the locale is
+            Tokenizer tokenizer = new Tokenizer(dataString, '.');
+            make = tokenizer.next();
+            model = tokenizer.next();
+            year = tokenizer.nextInt();
+            setMileage(tokenizer.nextInt());
+            setPrice(tokenizer.nextDouble());
+        } catch (NoSuchElementException e) {
+            // not only plain numbers, numbers of the default locale or missing data:
+            // Scanner either reads it or reports the error
+            parseWithScanner(dataString);
+        }
+    }
+
+    // Scanner also reads the numbers in the formats of the default locale
+    void parseWithScanner(String dataString) {
+        try {
             Scanner scanner = new Scanner(dataString);
             make = scanner.next();
             model = scanner.next();
@@ -81,6 +98,11 @@ public final class Car implements Parsable<Car> {
         }
     }
 
+    @Override
+    public String toDataString() {
+        return make + " " + model + " " + year + " " + mileage + " " + price;
+    }
+
     @Override
     public String toString() {
         return make + "_" + model + ":" + year + " " + getMileage() + " "
@@ -129,7 +151,14 @@ public final class Car implements Parsable<Car> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(make, model, year, mileage, price);
+        // the same value as Objects.hash(make, model, year, mileage, price), without boxing
+        int result = 1;
+        result = 31 * result + Objects.hashCode(make);
+        result = 31 * result + Objects.hashCode(model);
+        result = 31 * result + year;
+        result = 31 * result + mileage;
+        result = 31 * result + Double.hashCode(price);
+        return result;
     }
 
     // Car class object builder
@@ -0,0 +1,71 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMap;
+import utils.HashMapOa;
+import utils.Map;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Filling maps keyed by Car, whose hashCode() hashes five fields. The maps start with the default
+// capacity, so the time includes every rehash. The stored hash codes let the rehash skip hashCode().
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class CarKeyBenchmark {
+
+    @Param({"10000", "80000"})
+    public int elementCount;
+
+    List<Car> cars;
+    List<String> ids;
+
+    @Setup(Level.Trial)
+    public void generateCarsAndIds() {
+        cars = Benchmark.generateCars(elementCount);
+        ids = Benchmark.generateIds(elementCount);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Map<Car, String> putHashMap() {
+        return putMappings(new HashMap<>(HashManager.HashType.DIVISION));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Map<Car, String> putHashMapOa() {
+        return putMappings(new HashMapOa<>(HashManager.HashType.DIVISION));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public java.util.HashMap<Car, String> putJavaHashMap() {
+        java.util.HashMap<Car, String> carsMap = new java.util.HashMap<>();
+        for (int i = 0; i < elementCount; i++) {
+            carsMap.put(cars.get(i), ids.get(i));
+        }
+        return carsMap;
+    }
+
+    private Map<Car, String> putMappings(Map<Car, String> carsMap) {
+        for (int i = 0; i < elementCount; i++) {
+            carsMap.put(cars.get(i), ids.get(i));
+        }
+        return carsMap;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CarKeyBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
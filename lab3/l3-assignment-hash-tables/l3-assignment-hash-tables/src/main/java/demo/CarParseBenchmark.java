@@ -0,0 +1,69 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Parsing of car data lines by Car.parse(), which uses utils.Tokenizer, versus the original parser
+// based on java.util.Scanner. The time and, with the GC profiler, the allocation are per line.
+// An invocation of parseScanner takes about a minute and a half, hence the few iterations.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 1, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+public class CarParseBenchmark {
+
+    static final int LINE_COUNT = 1_000_000;
+
+    String[] lines;
+
+    @Setup(Level.Trial)
+    public void generateLines() {
+        List<String> dataLines = Benchmark.generateCars(LINE_COUNT).stream()
+                .map(Car::toDataString)
+                .collect(Collectors.toList());
+        lines = dataLines.toArray(new String[0]);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @OperationsPerInvocation(LINE_COUNT)
+    public double parseTokenizer() {
+        double price = 0;
+        for (String line : lines) {
+            Car car = new Car();
+            car.parse(line);
+            price += car.getPrice();
+        }
+        return price;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @OperationsPerInvocation(LINE_COUNT)
+    public double parseScanner() {
+        double price = 0;
+        for (String line : lines) {
+            Car car = new Car();
+            car.parseWithScanner(line);
+            price += car.getPrice();
+        }
+        return price;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CarParseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
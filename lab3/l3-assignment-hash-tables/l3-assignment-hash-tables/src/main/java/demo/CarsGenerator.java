@@ -5,13 +5,14 @@ import gui.ValidationException;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class CarsGenerator {
 
     private static final String ID_CODE = "TA";
-    private static int serNr = 100;
+    private static final AtomicInteger serNr = new AtomicInteger(100);
 
     private Queue<String> keys;
     private Queue<Car> cars;
@@ -80,6 +81,27 @@ public class CarsGenerator {
     }
 
     public static String generateId() {
-        return ID_CODE + (serNr++);
+        return id(serNr.getAndIncrement());
+    }
+
+    /**
+     * Reserves count consecutive serial numbers, so the ids of a block can be created
+     * later, e.g. by other threads, in the same order as by generateId().
+     *
+     * @param count the number of ids
+     * @return the first serial number of the block
+     */
+    public static int reserveIds(int count) {
+        return serNr.getAndAdd(count);
+    }
+
+    /**
+     * Returns the id of the serial number.
+     *
+     * @param serNr serial number, e.g. from reserveIds(int)
+     * @return the id
+     */
+    public static String id(int serNr) {
+        return ID_CODE + serNr;
     }
 }
@@ -0,0 +1,76 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMapOa;
+import utils.MapMetrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Churn of an open addressing map with LIVE_COUNT pairs: every operation removes the oldest pair, puts a new one
+// and looks up a present and an absent key, so the size stays constant and the removals leave DELETED places.
+// The iterations run one after another on the same map, so a stable score shows that the DELETED places
+// do not accumulate; the number of them and the capacity are printed after every iteration.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ChurnBenchmark {
+
+    static final int LIVE_COUNT = 10_000;
+    static final int KEY_COUNT = 1 << 20;
+
+    @Param({"LINEAR", "QUADRATIC", "DOUBLE_HASHING"})
+    public HashMapOa.OpenAddressingType oaType;
+
+    // Keys of the pairs in the order they are put; the pairs of [oldest, oldest + LIVE_COUNT) are in the map
+    String[] ids;
+    Car[] cars;
+    int oldest = 0;
+    HashMapOa<String, Car> carsMap;
+
+    @Setup(Level.Trial)
+    public void fillMap() {
+        List<String> idList = Benchmark.generateIds(KEY_COUNT);
+        ids = idList.toArray(new String[0]);
+        cars = Benchmark.generateCars(LIVE_COUNT).toArray(new Car[0]);
+        carsMap = new HashMapOa<>(HashMapOa.DEFAULT_INITIAL_CAPACITY, HashMapOa.DEFAULT_LOAD_FACTOR,
+                HashManager.HashType.DIVISION, oaType);
+        for (int i = 0; i < LIVE_COUNT; i++) {
+            carsMap.put(ids[i], cars[i]);
+        }
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Car churn() {
+        int newest = (oldest + LIVE_COUNT) % KEY_COUNT;
+        carsMap.remove(ids[oldest]);
+        carsMap.put(ids[newest], cars[newest % LIVE_COUNT]);
+        oldest = (oldest + 1) % KEY_COUNT;
+        Car present = carsMap.get(ids[(oldest + LIVE_COUNT / 2) % KEY_COUNT]);
+        Car absent = carsMap.get(ids[(oldest + LIVE_COUNT + 1) % KEY_COUNT]);
+        return absent == null ? present : absent;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printTombstones() {
+        MapMetrics metrics = carsMap.getMetrics();
+        System.out.printf(" [deleted places %d, capacity %d, rehashes %d]%n",
+                metrics.getTombstones(), metrics.getCapacity(), metrics.getRehashes());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ChurnBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
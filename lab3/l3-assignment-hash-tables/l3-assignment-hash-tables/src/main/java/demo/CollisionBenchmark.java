@@ -0,0 +1,103 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMap;
+import utils.HashMapOa;
+import utils.Map;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Lookups of adversarial keys: all keys have the same hashCode(), so they all land in one chain.
+// HashMap keeps them in a tree bin, HashMapOa has to probe through the whole cluster.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class CollisionBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int elementCount;
+
+    List<String> keys;
+    List<Car> cars;
+    Map<String, Car> hashMap;
+    Map<String, Car> hashMapOa;
+    java.util.HashMap<String, Car> javaMap;
+
+    @Setup(Level.Trial)
+    public void generateKeysAndCars() {
+        keys = generateCollidingKeys(elementCount);
+        cars = Benchmark.generateCars(elementCount);
+        hashMap = new HashMap<>(HashManager.HashType.DIVISION);
+        hashMapOa = new HashMapOa<>(HashManager.HashType.DIVISION);
+        javaMap = new java.util.HashMap<>();
+        for (int i = 0; i < elementCount; i++) {
+            hashMap.put(keys.get(i), cars.get(i));
+            hashMapOa.put(keys.get(i), cars.get(i));
+            javaMap.put(keys.get(i), cars.get(i));
+        }
+    }
+
+    /**
+     * Generates distinct strings with equal hash codes. "Aa" and "BB" have the same
+     * hash code, so do all strings built of the same number of such blocks.
+     *
+     * @param count number of keys
+     * @return shuffled keys
+     */
+    static List<String> generateCollidingKeys(int count) {
+        int blocks = 32 - Integer.numberOfLeadingZeros(Math.max(count - 1, 1));
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder key = new StringBuilder(blocks * 2);
+            for (int b = 0; b < blocks; b++) {
+                key.append(((i >> b) & 1) == 0 ? "Aa" : "BB");
+            }
+            keys.add(key.toString());
+        }
+        Collections.shuffle(keys, new Random(1949));
+        return keys;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getHashMap(Blackhole blackhole) {
+        keys.forEach(key -> blackhole.consume(hashMap.get(key)));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getHashMapOa(Blackhole blackhole) {
+        keys.forEach(key -> blackhole.consume(hashMapOa.get(key)));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getJavaHashMap(Blackhole blackhole) {
+        keys.forEach(key -> blackhole.consume(javaMap.get(key)));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Map<String, Car> putHashMap() {
+        Map<String, Car> map = new HashMap<>(HashManager.HashType.DIVISION);
+        Benchmark.putMappings(keys, cars, map);
+        return map;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CollisionBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,87 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.ConcurrentHashMap;
+import utils.HashManager;
+import utils.HashMap;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Shared map of cars, 90% get() and 10% put() per thread:
+// utils.HashMap behind a global lock vs utils.ConcurrentHashMap vs java.util.concurrent.ConcurrentHashMap.
+// main() runs the benchmark with 1, 2, 4 and 8 threads.
+
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+@Threads(4)
+public class ConcurrentBenchmark {
+
+    @Param({"80000"})
+    public int elementCount;
+
+    List<String> ids;
+    List<Car> cars;
+    HashMap<String, Car> lockedMap;
+    ConcurrentHashMap<String, Car> concurrentMap;
+    java.util.concurrent.ConcurrentHashMap<String, Car> javaMap;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void fillMaps() {
+        ids = Benchmark.generateIds(elementCount);
+        cars = Benchmark.generateCars(elementCount);
+        lockedMap = new HashMap<>(HashManager.HashType.JCF);
+        concurrentMap = new ConcurrentHashMap<>(HashManager.HashType.JCF);
+        javaMap = new java.util.concurrent.ConcurrentHashMap<>();
+        Benchmark.putMappings(ids, cars, lockedMap);
+        Benchmark.putMappings(ids, cars, concurrentMap);
+        for (int i = 0; i < elementCount; i++) {
+            javaMap.put(ids.get(i), cars.get(i));
+        }
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Car lockedHashMap(ThreadState state) {
+        int i = state.random.nextInt(elementCount);
+        synchronized (lockedMap) {
+            return state.random.nextInt(10) == 0 ? lockedMap.put(ids.get(i), cars.get(i)) : lockedMap.get(ids.get(i));
+        }
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Car concurrentHashMap(ThreadState state) {
+        int i = state.random.nextInt(elementCount);
+        return state.random.nextInt(10) == 0 ? concurrentMap.put(ids.get(i), cars.get(i)) : concurrentMap.get(ids.get(i));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Car javaConcurrentHashMap(ThreadState state) {
+        int i = state.random.nextInt(elementCount);
+        return state.random.nextInt(10) == 0 ? javaMap.put(ids.get(i), cars.get(i)) : javaMap.get(ids.get(i));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            Options opt = new OptionsBuilder()
+                    .include(ConcurrentBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .forks(1)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.ExpiringHashMap;
+import utils.HashManager;
+import utils.HashMap;
+
+import java.util.concurrent.TimeUnit;
+
+// Removal of expired cars: the timing wheel of ExpiringHashMap against a sweep of all the keys of a HashMap.
+// Every operation advances a manual clock by STEP and puts PUTS_PER_STEP cars, which live for
+// liveCount / PUTS_PER_STEP steps, so as many cars expire and liveCount of them are in the map.
+// reapWheel removes them by expireEntries(), sweep checks the expiry time of every key.
+// At the end of a reapWheel trial the expirations per second of the manual clock are printed.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class ExpirationBenchmark {
+
+    static final int PUTS_PER_STEP = 100;
+    static final long STEP = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"10000", "100000"})
+    public int liveCount;
+
+    // The ids are reused after they expire
+    String[] ids;
+    Car[] cars;
+    int next = 0;
+    long now = 0;
+    ExpiringHashMap<String, Car> expiringMap;
+    HashMap<String, Car> sweptMap;
+    // Expiry times of the ids in sweptMap
+    long[] expiresAt;
+
+    @Setup(Level.Trial)
+    public void fillMaps() {
+        ids = Benchmark.generateIds(2 * liveCount).toArray(new String[0]);
+        cars = Benchmark.generateCars(2 * liveCount).toArray(new Car[0]);
+        expiresAt = new long[ids.length];
+        expiringMap = new ExpiringHashMap<>(timeToLive(), TimeUnit.NANOSECONDS, HashManager.HashType.DIVISION, () -> now);
+        sweptMap = new HashMap<>(HashManager.HashType.DIVISION);
+        for (int step = 0; step < liveCount / PUTS_PER_STEP; step++) {
+            now += STEP;
+            for (int i = 0; i < PUTS_PER_STEP; i++) {
+                expiringMap.put(ids[next], cars[next]);
+                sweptMap.put(ids[next], cars[next]);
+                expiresAt[next] = now + timeToLive();
+                next = (next + 1) % ids.length;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void printExpirations() {
+        if (expiringMap.getExpirationsCounter() == 0) {
+            return;
+        }
+        System.out.printf("%n%d: %.0f expirations per second, %d cars%n", liveCount,
+                expiringMap.getExpirationsPerSecond(), expiringMap.size());
+    }
+
+    private long timeToLive() {
+        return liveCount / PUTS_PER_STEP * STEP;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public int reapWheel() {
+        now += STEP;
+        for (int i = 0; i < PUTS_PER_STEP; i++) {
+            expiringMap.put(ids[next], cars[next]);
+            next = (next + 1) % ids.length;
+        }
+        expiringMap.expireEntries();
+        return expiringMap.size();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public int sweep() {
+        now += STEP;
+        for (int i = 0; i < PUTS_PER_STEP; i++) {
+            sweptMap.put(ids[next], cars[next]);
+            expiresAt[next] = now + timeToLive();
+            next = (next + 1) % ids.length;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (sweptMap.contains(ids[i]) && expiresAt[i] - now <= 0) {
+                sweptMap.remove(ids[i]);
+            }
+        }
+        return sweptMap.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ExpirationBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
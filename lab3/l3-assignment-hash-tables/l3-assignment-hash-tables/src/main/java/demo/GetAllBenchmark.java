@@ -0,0 +1,117 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMap;
+import utils.HashMapOa;
+import utils.Map;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Lookups of LOOKUP_COUNT random present car ids, split into batches of batchSize keys: by a loop of get()
+// or by getAll(), which resolves the keys of a batch in groups, so the cache misses of a group overlap.
+// With 1_000_000 cars the table and the cars do not fit into the L2/L3 cache, with 10_000 they do.
+// The keys are copies of the ids, so every equals() compares the characters. The score is per key.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class GetAllBenchmark {
+
+    static final int LOOKUP_COUNT = 1 << 12;
+    static final int KEY_COUNT = 1 << 20;
+
+    public enum MapType {
+        HASH_MAP,
+        HASH_MAP_OA
+    }
+
+    @Param({"HASH_MAP", "HASH_MAP_OA"})
+    public MapType mapType;
+
+    @Param({"10000", "1000000"})
+    public int elementCount;
+
+    @Param({"16", "64", "256", "1024"})
+    public int batchSize;
+
+    String[] keys;
+    String[] batch;
+    Car[] cars;
+    int next = 0;
+    Map<String, Car> carsMap;
+
+    @Setup(Level.Trial)
+    public void fillMap() {
+        List<String> ids = Benchmark.generateIds(elementCount);
+        carsMap = mapType == MapType.HASH_MAP
+                ? new HashMap<>(HashManager.HashType.DIVISION)
+                : new HashMapOa<>(HashManager.HashType.DIVISION);
+        Benchmark.putMappings(ids, Benchmark.generateCars(elementCount), carsMap);
+
+        Random random = new Random(1);
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = new String(ids.get(random.nextInt(elementCount)));
+        }
+        batch = new String[batchSize];
+        cars = new Car[batchSize];
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @OperationsPerInvocation(LOOKUP_COUNT)
+    public int getLoop() {
+        int found = 0;
+        for (int looked = 0; looked < LOOKUP_COUNT; looked += batchSize) {
+            nextBatch();
+            for (int i = 0; i < batchSize; i++) {
+                cars[i] = carsMap.get(batch[i]);
+            }
+            found += countFound();
+        }
+        return found;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @OperationsPerInvocation(LOOKUP_COUNT)
+    public int getAll() {
+        int found = 0;
+        for (int looked = 0; looked < LOOKUP_COUNT; looked += batchSize) {
+            nextBatch();
+            carsMap.getAll(batch, cars);
+            found += countFound();
+        }
+        return found;
+    }
+
+    private void nextBatch() {
+        System.arraycopy(keys, next, batch, 0, batchSize);
+        next = (next + batchSize) & (KEY_COUNT - 1);
+    }
+
+    private int countFound() {
+        int found = 0;
+        for (Car car : cars) {
+            if (car != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(GetAllBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,57 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of HashManager.hash() per hash type. The table length is rounded up to a power of two
+// for the types that require it, so 1000 shows the cost for a non power of two table.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class HashManagerBenchmark {
+
+    private static final int HASHCODE_COUNT = 1024;
+
+    @Param({"DIVISION", "MULTIPLICATION", "JCF7", "JCF", "FIBONACCI", "FASTRANGE"})
+    public HashManager.HashType hashType;
+
+    @Param({"1000", "1024"})
+    public int tableLength;
+
+    int[] hashcodes;
+    int length;
+
+    @Setup
+    public void generateHashcodes() {
+        hashcodes = Benchmark.generateIds(HASHCODE_COUNT).stream().mapToInt(String::hashCode).toArray();
+        length = HashManager.tableSizeFor(tableLength, hashType);
+    }
+
+    // Benchmark: HASHCODE_COUNT calls of hash()
+    @org.openjdk.jmh.annotations.Benchmark
+    @OperationsPerInvocation(HASHCODE_COUNT)
+    public int hash() {
+        int sum = 0;
+        for (int hashcode : hashcodes) {
+            sum += HashManager.hash(hashcode, length, hashType);
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HashManagerBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,92 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMapOa;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// HashMapOa.get() throughput of linear probing, Robin Hood and hopscotch hashing at high load factors.
+// The table is sized for the load factor, so it is as full as the load factor allows, unless it had to be
+// enlarged. getPresent looks up the keys of the map, getAbsent as many other keys. At the end of a trial
+// the actual load and the heap taken by the map per pair, the keys and the values excluded, are printed.
+// FASTRANGE spreads the hash codes: with DIVISION the codes of sequential ids crowd more than
+// HOPSCOTCH_NEIGHBORHOOD keys into some neighborhoods, so hopscotch enlarges the table or places overflow entries.
+
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class HopscotchBenchmark {
+
+    static final int ELEMENT_COUNT = 100_000;
+
+    @Param({"0.75", "0.9", "0.95"})
+    public float loadFactor;
+
+    @Param({"LINEAR", "ROBIN_HOOD", "HOPSCOTCH"})
+    public HashMapOa.OpenAddressingType oaType;
+
+    String[] presentIds;
+    String[] absentIds;
+    HashMapOa<String, Car> carsMap;
+    double bytesPerEntry;
+
+    @Setup(Level.Trial)
+    public void fillMap() {
+        List<String> ids = Benchmark.generateIds(2 * ELEMENT_COUNT);
+        List<Car> cars = Benchmark.generateCars(ELEMENT_COUNT);
+        presentIds = ids.subList(0, ELEMENT_COUNT).toArray(new String[0]);
+        absentIds = ids.subList(ELEMENT_COUNT, 2 * ELEMENT_COUNT).toArray(new String[0]);
+
+        long usedBefore = usedMemory();
+        carsMap = new HashMapOa<>((int) (ELEMENT_COUNT / loadFactor) + 1, loadFactor, HashManager.HashType.FASTRANGE, oaType);
+        Benchmark.putMappings(ids.subList(0, ELEMENT_COUNT), cars, carsMap);
+        bytesPerEntry = (double) (usedMemory() - usedBefore) / ELEMENT_COUNT;
+    }
+
+    @TearDown(Level.Trial)
+    public void printFootprint() {
+        System.out.printf("%n%s %.2f: %.1f bytes per entry, load %.3f, %d rehashes%n", oaType, loadFactor, bytesPerEntry,
+                (double) carsMap.size() / carsMap.getTableCapacity(), carsMap.getRehashesCounter());
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @OperationsPerInvocation(ELEMENT_COUNT)
+    public void getPresent(Blackhole blackhole) {
+        for (String id : presentIds) {
+            blackhole.consume(carsMap.get(id));
+        }
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    @OperationsPerInvocation(ELEMENT_COUNT)
+    public void getAbsent(Blackhole blackhole) {
+        for (String id : absentIds) {
+            blackhole.consume(carsMap.get(id));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HopscotchBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,102 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMapOa;
+import utils.Int2ObjectHashMapOa;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Maps of cars keyed by int ids: Int2ObjectHashMapOa vs HashMapOa<Integer, Car> vs java.util.HashMap<Integer, Car>.
+// main() runs with the GC profiler, compare gc.alloc.rate.norm (bytes allocated per operation).
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class IntKeyBenchmark {
+
+    @Param({"10000", "80000"})
+    public int elementCount;
+
+    int[] ids;
+    List<Car> cars;
+    Int2ObjectHashMapOa<Car> intMap;
+    HashMapOa<Integer, Car> mapOa;
+    java.util.HashMap<Integer, Car> javaMap;
+
+    @Setup(Level.Trial)
+    public void generateIdsAndCars() {
+        ids = new Random(1949).ints(elementCount, 0, Integer.MAX_VALUE).distinct().toArray();
+        cars = Benchmark.generateCars(ids.length);
+        intMap = putIntMap();
+        mapOa = putMapOa();
+        javaMap = putJavaMap();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Int2ObjectHashMapOa<Car> putIntMap() {
+        Int2ObjectHashMapOa<Car> map = new Int2ObjectHashMapOa<>(HashManager.HashType.DIVISION);
+        for (int i = 0; i < ids.length; i++) {
+            map.putInt(ids[i], cars.get(i));
+        }
+        return map;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public HashMapOa<Integer, Car> putMapOa() {
+        HashMapOa<Integer, Car> map = new HashMapOa<>(HashManager.HashType.DIVISION);
+        for (int i = 0; i < ids.length; i++) {
+            map.put(ids[i], cars.get(i));
+        }
+        return map;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public java.util.HashMap<Integer, Car> putJavaMap() {
+        java.util.HashMap<Integer, Car> map = new java.util.HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            map.put(ids[i], cars.get(i));
+        }
+        return map;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getIntMap(Blackhole blackhole) {
+        for (int id : ids) {
+            blackhole.consume(intMap.getInt(id));
+        }
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getMapOa(Blackhole blackhole) {
+        for (int id : ids) {
+            blackhole.consume(mapOa.get(id));
+        }
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getJavaMap(Blackhole blackhole) {
+        for (int id : ids) {
+            blackhole.consume(javaMap.get(id));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(IntKeyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
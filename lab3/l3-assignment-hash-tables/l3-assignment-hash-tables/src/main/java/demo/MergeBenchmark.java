@@ -0,0 +1,75 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMap;
+import utils.HashMapOa;
+import utils.Map;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// A counter per car id: every operation adds 1 to the counter of a random one of KEY_COUNT ids,
+// either by get() and put(), which look the key up twice, or by merge(), which looks it up once.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class MergeBenchmark {
+
+    static final int KEY_COUNT = 100_000;
+    static final int UPDATE_COUNT = 1 << 20;
+
+    public enum MapType {
+        HASH_MAP,
+        HASH_MAP_OA
+    }
+
+    @Param({"HASH_MAP", "HASH_MAP_OA"})
+    public MapType mapType;
+
+    String[] updatedIds;
+    int next = 0;
+    Map<String, Integer> counters;
+
+    @Setup(Level.Trial)
+    public void generateUpdates() {
+        List<String> ids = Benchmark.generateIds(KEY_COUNT);
+        Random random = new Random(1);
+        updatedIds = new String[UPDATE_COUNT];
+        for (int i = 0; i < UPDATE_COUNT; i++) {
+            updatedIds[i] = ids.get(random.nextInt(KEY_COUNT));
+        }
+        counters = mapType == MapType.HASH_MAP
+                ? new HashMap<>(HashManager.HashType.DIVISION)
+                : new HashMapOa<>(HashManager.HashType.DIVISION);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Integer getAndPut() {
+        String id = updatedIds[next++ & (UPDATE_COUNT - 1)];
+        Integer count = counters.get(id);
+        return counters.put(id, count == null ? 1 : count + 1);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public Integer merge() {
+        String id = updatedIds[next++ & (UPDATE_COUNT - 1)];
+        return counters.merge(id, 1, Integer::sum);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(MergeBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,77 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.EvaluableMap;
+import utils.HashManager;
+import utils.HashMap;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// OffHeapCarMap vs utils.HashMap<String, Car>. main() runs with the GC profiler: gc.alloc.rate.norm of put
+// is the heap taken by a filled map (the keys and cars are created beforehand), gc.count and gc.time show
+// the collections. get() of OffHeapCarMap allocates the decoded Car.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class OffHeapBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int elementCount;
+
+    List<String> ids;
+    List<Car> cars;
+    HashMap<String, Car> heapMap;
+    OffHeapCarMap offHeapMap;
+
+    @Setup(Level.Trial)
+    public void generateIdsAndCars() {
+        ids = Benchmark.generateIds(elementCount);
+        cars = Benchmark.generateCars(elementCount);
+        heapMap = putHeapMap();
+        offHeapMap = putOffHeapMap();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public HashMap<String, Car> putHeapMap() {
+        return putMappings(new HashMap<>(HashManager.HashType.DIVISION));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public OffHeapCarMap putOffHeapMap() {
+        return putMappings(new OffHeapCarMap());
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getHeapMap(Blackhole blackhole) {
+        ids.forEach(id -> blackhole.consume(heapMap.get(id)));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void getOffHeapMap(Blackhole blackhole) {
+        ids.forEach(id -> blackhole.consume(offHeapMap.get(id)));
+    }
+
+    private <M extends EvaluableMap<String, Car>> M putMappings(M carsMap) {
+        Benchmark.putMappings(ids, cars, carsMap);
+        return carsMap;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(OffHeapBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,397 @@
+package demo;
+
+import utils.EvaluableMap;
+import utils.HashManager;
+import utils.HashMap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The hash table of cars kept outside of the Java heap. Every key-value pair is a fixed-width record
+ * in a direct ByteBuffer: the hash code and the characters of the key, the dictionary codes of the
+ * make and the model, year, mileage and price. The records are found through an int array index based
+ * on open addressing (linear probing), which holds record number + 1, 0 marking an empty place.
+ * So the heap holds no object per pair, and a Car object is created only by get().
+ * The records are kept dense: the last record is moved into the place of a removed one.
+ */
+public class OffHeapCarMap implements EvaluableMap<String, Car> {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    // Sequential ids form long clusters in linear probing unless the hash code is spread
+    public static final HashManager.HashType DEFAULT_HASH_TYPE = HashManager.HashType.FIBONACCI;
+    // The longest key, in characters
+    public static final int MAX_KEY_LENGTH = 16;
+
+    // Record layout, offsets in bytes
+    private static final int HASH = 0;
+    private static final int KEY_LENGTH = 4;
+    private static final int MAKE = 6;
+    private static final int MODEL = 8;
+    private static final int YEAR = 10;
+    private static final int MILEAGE = 12;
+    private static final int PRICE = 16;
+    private static final int KEY = 24;
+    private static final int RECORD_SIZE = KEY + MAX_KEY_LENGTH * Character.BYTES;
+
+    // Records of the key-value pairs
+    private ByteBuffer records;
+    // Index of the records: record number + 1, 0 marks an empty place
+    private int[] index;
+    // Dictionaries of makes and models: code -> string and string -> code
+    private final List<String> names = new ArrayList<>();
+    private final HashMap<String, Integer> codes = new HashMap<>();
+    // The amount of key-value pairs, which is also the number of records
+    private int size = 0;
+    private final float loadFactor;
+    private final HashManager.HashType ht;
+    //--------------------------------------------------------------------------
+    //  Parameters of hash table
+    //--------------------------------------------------------------------------
+    private int rehashesCounter = 0;
+    private int lastUpdated = 0;
+    private int maxProbeDistance = 0;
+
+    public OffHeapCarMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_HASH_TYPE);
+    }
+
+    public OffHeapCarMap(int initialCapacity, float loadFactor, HashManager.HashType ht) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if ((loadFactor <= 0.0) || (loadFactor >= 1.0)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        this.loadFactor = loadFactor;
+        this.ht = ht;
+        this.index = new int[HashManager.tableSizeFor(initialCapacity, ht)];
+        this.records = ByteBuffer.allocateDirect((int) (index.length * loadFactor + 1) * RECORD_SIZE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(index, 0);
+        size = 0;
+        rehashesCounter = 0;
+        lastUpdated = 0;
+        maxProbeDistance = 0;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in contains(K key)");
+        }
+        return findPosition(key, key.hashCode()) != -1;
+    }
+
+    @Override
+    public Car put(String key, Car value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key or value is null in put(K key, V value)");
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Key is longer than " + MAX_KEY_LENGTH + " characters: " + key);
+        }
+
+        int hash = key.hashCode();
+        int position = HashManager.hash(hash, index.length, ht);
+        int distance = 0;
+        while (index[position] != 0) {
+            int record = index[position] - 1;
+            if (keyEquals(record, key, hash)) {
+                writeCar(record, value);
+                lastUpdated = position;
+                return value;
+            }
+            position = nextPosition(position);
+            distance++;
+        }
+
+        int record = size;
+        ensureRecordCapacity(record + 1);
+        int offset = record * RECORD_SIZE;
+        records.putInt(offset + HASH, hash);
+        records.putShort(offset + KEY_LENGTH, (short) key.length());
+        for (int i = 0; i < key.length(); i++) {
+            records.putChar(offset + KEY + i * Character.BYTES, key.charAt(i));
+        }
+        writeCar(record, value);
+        index[position] = record + 1;
+        size++;
+        maxProbeDistance = Math.max(maxProbeDistance, distance);
+        if (size > index.length * loadFactor) {
+            rehash();
+        } else {
+            lastUpdated = position;
+        }
+        return value;
+    }
+
+    @Override
+    public Car get(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in get(K key)");
+        }
+        int position = findPosition(key, key.hashCode());
+        return position == -1 ? null : readCar(index[position] - 1);
+    }
+
+    @Override
+    public Car remove(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in remove(K key)");
+        }
+        int position = findPosition(key, key.hashCode());
+        if (position == -1) {
+            return null;
+        }
+
+        int record = index[position] - 1;
+        Car car = readCar(record);
+        // Backward shift: an entry of the cluster is moved into the hole,
+        // unless the hole lies before its home position in the probe sequence
+        int hole = position;
+        int next = nextPosition(hole);
+        while (index[next] != 0) {
+            int home = HashManager.hash(records.getInt((index[next] - 1) * RECORD_SIZE + HASH), index.length, ht);
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                index[hole] = index[next];
+                hole = next;
+            }
+            next = nextPosition(next);
+        }
+        index[hole] = 0;
+
+        // The last record takes the place of the removed one
+        int last = size - 1;
+        if (record != last) {
+            int lastPosition = HashManager.hash(records.getInt(last * RECORD_SIZE + HASH), index.length, ht);
+            while (index[lastPosition] != last + 1) {
+                lastPosition = nextPosition(lastPosition);
+            }
+            index[lastPosition] = record + 1;
+            ByteBuffer source = records.duplicate();
+            source.position(last * RECORD_SIZE).limit((last + 1) * RECORD_SIZE);
+            ByteBuffer target = records.duplicate();
+            target.position(record * RECORD_SIZE);
+            target.put(source);
+        }
+        size--;
+        return car;
+    }
+
+    @Override
+    public boolean replace(String key, Car oldValue, Car newValue) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in replace(K key, V oldValue, V newValue)");
+        }
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replace(K key, V oldValue, V newValue)");
+        }
+        int position = findPosition(key, key.hashCode());
+        if (position != -1 && readCar(index[position] - 1).equals(oldValue)) {
+            writeCar(index[position] - 1, newValue);
+            lastUpdated = position;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int record = 0; record < size; record++) {
+            if (readCar(record).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int record = 0; record < size; record++) {
+            result.append(readKey(record)).append('=').append(readCar(record)).append(System.lineSeparator());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the number of bytes of the records outside of the heap.
+     *
+     * @return capacity of the record buffer in bytes.
+     */
+    public int getOffHeapBytes() {
+        return records.capacity();
+    }
+
+    private int findPosition(String key, int hash) {
+        int position = HashManager.hash(hash, index.length, ht);
+        while (index[position] != 0) {
+            if (keyEquals(index[position] - 1, key, hash)) {
+                return position;
+            }
+            position = nextPosition(position);
+        }
+        return -1;
+    }
+
+    private int nextPosition(int position) {
+        return position + 1 == index.length ? 0 : position + 1;
+    }
+
+    private boolean keyEquals(int record, String key, int hash) {
+        int offset = record * RECORD_SIZE;
+        if (records.getInt(offset + HASH) != hash || records.getShort(offset + KEY_LENGTH) != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (records.getChar(offset + KEY + i * Character.BYTES) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readKey(int record) {
+        int offset = record * RECORD_SIZE;
+        char[] key = new char[records.getShort(offset + KEY_LENGTH)];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = records.getChar(offset + KEY + i * Character.BYTES);
+        }
+        return new String(key);
+    }
+
+    private void writeCar(int record, Car car) {
+        int offset = record * RECORD_SIZE;
+        records.putShort(offset + MAKE, code(car.getMake()));
+        records.putShort(offset + MODEL, code(car.getModel()));
+        records.putShort(offset + YEAR, (short) car.getYear());
+        records.putInt(offset + MILEAGE, car.getMileage());
+        records.putDouble(offset + PRICE, car.getPrice());
+    }
+
+    private Car readCar(int record) {
+        int offset = record * RECORD_SIZE;
+        return new Car(names.get(records.getShort(offset + MAKE)),
+                names.get(records.getShort(offset + MODEL)),
+                records.getShort(offset + YEAR),
+                records.getInt(offset + MILEAGE),
+                records.getDouble(offset + PRICE));
+    }
+
+    /**
+     * Returns the dictionary code of the make or model, adding it to the dictionary if needed.
+     */
+    private short code(String name) {
+        Integer code = codes.get(name);
+        if (code == null) {
+            if (names.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many different makes and models");
+            }
+            code = names.size();
+            names.add(name);
+            codes.put(name, code);
+        }
+        return code.shortValue();
+    }
+
+    private void ensureRecordCapacity(int recordCount) {
+        if (recordCount * RECORD_SIZE <= records.capacity()) {
+            return;
+        }
+        ByteBuffer newRecords = ByteBuffer.allocateDirect(Math.max(recordCount, records.capacity() / RECORD_SIZE * 2) * RECORD_SIZE);
+        ByteBuffer source = records.duplicate();
+        source.position(0).limit(size * RECORD_SIZE);
+        newRecords.put(source);
+        records = newRecords;
+    }
+
+    /**
+     * Rebuilds the index only; the records stay in place.
+     */
+    private void rehash() {
+        index = new int[index.length * 2];
+        maxProbeDistance = 0;
+        for (int record = 0; record < size; record++) {
+            int position = HashManager.hash(records.getInt(record * RECORD_SIZE + HASH), index.length, ht);
+            int distance = 0;
+            while (index[position] != 0) {
+                position = nextPosition(position);
+                distance++;
+            }
+            index[position] = record + 1;
+            maxProbeDistance = Math.max(maxProbeDistance, distance);
+            lastUpdated = position;
+        }
+        rehashesCounter++;
+    }
+
+    /**
+     * Returns the number of rehashes occurred in the hash table.
+     *
+     * @return number of rehashes.
+     */
+    @Override
+    public int getRehashesCounter() {
+        return rehashesCounter;
+    }
+
+    /**
+     * Returns the capacity of the index.
+     *
+     * @return capacity of hash table.
+     */
+    @Override
+    public int getTableCapacity() {
+        return index.length;
+    }
+
+    /**
+     * Returns the index of last update element of the hash table.
+     *
+     * @return the index of last update element of the hash table.
+     */
+    @Override
+    public int getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Returns the number of occupied places in the index.
+     *
+     * @return the number of occupied places in the hash table.
+     */
+    @Override
+    public int getNumberOfOccupied() {
+        return size;
+    }
+
+    /**
+     * Returns the longest probe sequence needed to place an entry.
+     *
+     * @return the maximum probe distance.
+     */
+    @Override
+    public int getMaxProbeDistance() {
+        return maxProbeDistance;
+    }
+}
@@ -0,0 +1,78 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMap;
+import utils.HashMapOa;
+import utils.IterableMap;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The average price of the cars of a map with ELEMENT_COUNT pairs: by the value iterator, by a sequential
+// stream and by a parallel stream, whose spliterator splits the table into ranges of places.
+// The parallel stream runs in the common ForkJoinPool, so its speedup is bounded by the number of processors.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class ParallelAggregateBenchmark {
+
+    static final int ELEMENT_COUNT = 1_000_000;
+
+    public enum MapType {
+        HASH_MAP,
+        HASH_MAP_OA
+    }
+
+    @Param({"HASH_MAP", "HASH_MAP_OA"})
+    public MapType mapType;
+
+    IterableMap<String, Car> carsMap;
+
+    @Setup(Level.Trial)
+    public void fillMap() {
+        List<String> ids = Benchmark.generateIds(ELEMENT_COUNT);
+        List<Car> cars = Benchmark.generateCars(ELEMENT_COUNT);
+        carsMap = mapType == MapType.HASH_MAP
+                ? new HashMap<>(HashManager.HashType.DIVISION)
+                : new HashMapOa<>(HashManager.HashType.DIVISION);
+        Benchmark.putMappings(ids, cars, carsMap);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public double averagePriceIterator() {
+        double sum = 0;
+        int count = 0;
+        for (Iterator<Car> cars = carsMap.valueIterator(); cars.hasNext(); ) {
+            sum += cars.next().getPrice();
+            count++;
+        }
+        return sum / count;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public double averagePriceStream() {
+        return carsMap.stream().mapToDouble(entry -> entry.getValue().getPrice()).average().orElse(0);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public double averagePriceParallelStream() {
+        return carsMap.parallelStream().mapToDouble(entry -> entry.getValue().getPrice()).average().orElse(0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ParallelAggregateBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,79 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMapOa;
+import utils.ParsableHashMap;
+import utils.ParsableHashMapOa;
+import utils.ParsableMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// load() versus loadParallel() of a text file of cars, parsing the lines on the given number of threads.
+// Parsing of the lines dominates the load time, so it should scale with the number of cores up to
+// the cost of reading the file and merging the chunks into the map, both done by the calling thread.
+// The target is a file of 1M lines; -p lineCount=100000 gives a quicker run.
+
+@BenchmarkMode(Mode.SingleShotTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ParallelLoadBenchmark {
+
+    @Param({"1000000"})
+    public int lineCount;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    Path textFile;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        textFile = Files.createTempFile("cars", ".txt");
+        Files.write(textFile, Benchmark.generateCars(lineCount).stream().map(Car::toDataString).collect(Collectors.toList()));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(textFile);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public ParsableMap<String, Car> loadHashMap() {
+        ParsableMap<String, Car> carsMap = new ParsableHashMap<>(String::new, Car::new, HashManager.HashType.DIVISION);
+        carsMap.load(textFile.toString());
+        return carsMap;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public ParsableMap<String, Car> loadParallelHashMap() {
+        ParsableMap<String, Car> carsMap = new ParsableHashMap<>(String::new, Car::new, HashManager.HashType.DIVISION);
+        carsMap.loadParallel(textFile.toString(), parallelism);
+        return carsMap;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public ParsableMap<String, Car> loadParallelHashMapOa() {
+        ParsableMap<String, Car> carsMap = new ParsableHashMapOa<>(String::new, Car::new, HashManager.HashType.DIVISION, HashMapOa.OpenAddressingType.LINEAR);
+        carsMap.loadParallel(textFile.toString(), parallelism);
+        return carsMap;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ParallelLoadBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
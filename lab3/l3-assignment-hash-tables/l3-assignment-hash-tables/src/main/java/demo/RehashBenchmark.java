@@ -0,0 +1,67 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMap;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Latency distribution of a single HashMap.put() while the map grows through several rehashes.
+// The p99/p99.9 percentiles of the SampleTime mode show the cost of the rehash.
+
+@BenchmarkMode(Mode.SampleTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class RehashBenchmark {
+
+    @Param({"80000", "320000"})
+    public int elementCount;
+
+    @Param({"FULL", "INCREMENTAL"})
+    public HashMap.RehashType rehashType;
+
+    List<String> ids;
+    List<Car> cars;
+    HashMap<String, Car> carsMap;
+    int next;
+
+    @Setup(Level.Iteration)
+    public void generateIdsAndCars() {
+        ids = Benchmark.generateIds(elementCount);
+        cars = Benchmark.generateCars(elementCount);
+        carsMap = newMap();
+        next = 0;
+    }
+
+    // Benchmark: one put(), the map is started anew after elementCount puts
+    @org.openjdk.jmh.annotations.Benchmark
+    public Car put() {
+        if (next == elementCount) {
+            carsMap = newMap();
+            next = 0;
+        }
+        Car car = cars.get(next);
+        carsMap.put(ids.get(next++), car);
+        return car;
+    }
+
+    private HashMap<String, Car> newMap() {
+        return new HashMap<>(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR,
+                HashManager.HashType.DIVISION, rehashType);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(RehashBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,112 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.EvaluableMap;
+import utils.HashManager;
+import utils.HashMap;
+import utils.HashMapOa;
+import utils.IterableMap;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A map of ELEMENT_COUNT cars, 90% of which are removed: the table is kept at its peak capacity (NONE),
+// halved by remove() (SHRINK_ON_REMOVE) or trimmed once after the removals (TRIM_TO_SIZE).
+// The capacity and the heap taken by the map, measured after System.gc(), are printed for every trial;
+// the benchmarks iterate the remaining cars and scan the table by containsValue().
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class ShrinkBenchmark {
+
+    static final int ELEMENT_COUNT = 1_000_000;
+    static final int REMOVED_COUNT = ELEMENT_COUNT / 10 * 9;
+
+    public enum MapType {
+        HASH_MAP,
+        HASH_MAP_OA
+    }
+
+    public enum Shrinking {
+        NONE,
+        SHRINK_ON_REMOVE,
+        TRIM_TO_SIZE
+    }
+
+    @Param({"HASH_MAP", "HASH_MAP_OA"})
+    public MapType mapType;
+
+    @Param({"NONE", "SHRINK_ON_REMOVE", "TRIM_TO_SIZE"})
+    public Shrinking shrinking;
+
+    IterableMap<String, Car> carsMap;
+    Car absentCar;
+
+    @Setup(Level.Trial)
+    public void fillAndRemove() {
+        List<String> ids = Benchmark.generateIds(ELEMENT_COUNT);
+        List<Car> cars = Benchmark.generateCars(ELEMENT_COUNT + 1);
+        absentCar = cars.remove(ELEMENT_COUNT);
+        long heapBefore = usedHeap();
+
+        float shrinkLoadFactor = shrinking == Shrinking.SHRINK_ON_REMOVE ? HashMap.DEFAULT_LOAD_FACTOR / 4 : 0;
+        carsMap = mapType == MapType.HASH_MAP
+                ? new HashMap<>(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR, HashManager.HashType.DIVISION,
+                HashMap.DEFAULT_REHASH_TYPE, false, shrinkLoadFactor)
+                : new HashMapOa<>(HashMapOa.DEFAULT_INITIAL_CAPACITY, HashMapOa.DEFAULT_LOAD_FACTOR, HashManager.HashType.DIVISION,
+                HashMapOa.DEFAULT_OPEN_ADDRESSING_TYPE, false, shrinkLoadFactor);
+        Benchmark.putMappings(ids, cars, carsMap);
+        int peakCapacity = ((EvaluableMap<String, Car>) carsMap).getTableCapacity();
+        ids.subList(0, REMOVED_COUNT).forEach(carsMap::remove);
+        int released = 0;
+        if (shrinking == Shrinking.TRIM_TO_SIZE) {
+            released = carsMap instanceof HashMap
+                    ? ((HashMap<String, Car>) carsMap).trimToSize()
+                    : ((HashMapOa<String, Car>) carsMap).trimToSize();
+        }
+
+        System.out.printf("%n[capacity %d -> %d, trimToSize() released %d places, map heap %.1f MB]%n",
+                peakCapacity, ((EvaluableMap<String, Car>) carsMap).getTableCapacity(), released,
+                (usedHeap() - heapBefore) / 1e6);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public double averagePriceIterator() {
+        double sum = 0;
+        int count = 0;
+        for (Iterator<Car> cars = carsMap.valueIterator(); cars.hasNext(); ) {
+            sum += cars.next().getPrice();
+            count++;
+        }
+        return sum / count;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public boolean containsAbsentValue() {
+        return carsMap.containsValue(absentCar);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ShrinkBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,90 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.ParsableHashMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Startup of a car map: load() of a text file, parsing every line, versus load() of a snapshot written
+// by save(), whose values are created on the first access. The last benchmark accesses all the values.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class SnapshotBenchmark {
+
+    @Param({"80000"})
+    public int elementCount;
+
+    Path textFile;
+    Path snapshotFile;
+    List<String> ids;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        ids = Benchmark.generateIds(elementCount);
+        List<Car> cars = Benchmark.generateCars(elementCount);
+        textFile = Files.createTempFile("cars", ".txt");
+        Files.write(textFile, cars.stream().map(Car::toDataString).collect(Collectors.toList()));
+
+        ParsableHashMap<String, Car> carsMap = newMap();
+        Benchmark.putMappings(ids, cars, carsMap);
+        snapshotFile = Files.createTempFile("cars", ".snapshot");
+        carsMap.save(snapshotFile.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(textFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public ParsableHashMap<String, Car> loadText() {
+        ParsableHashMap<String, Car> carsMap = newMap();
+        carsMap.load(textFile.toString());
+        return carsMap;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public ParsableHashMap<String, Car> loadSnapshot() {
+        ParsableHashMap<String, Car> carsMap = newMap();
+        carsMap.load(snapshotFile.toString());
+        return carsMap;
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public int loadSnapshotAndGetAll() {
+        ParsableHashMap<String, Car> carsMap = newMap();
+        carsMap.load(snapshotFile.toString());
+        int mileage = 0;
+        for (String id : ids) {
+            mileage += carsMap.get(id).getMileage();
+        }
+        return mileage;
+    }
+
+    private static ParsableHashMap<String, Car> newMap() {
+        return new ParsableHashMap<>(String::new, Car::new, HashManager.HashType.DIVISION);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SnapshotBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
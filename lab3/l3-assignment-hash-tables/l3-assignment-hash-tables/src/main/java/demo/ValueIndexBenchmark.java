@@ -0,0 +1,81 @@
+package demo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import utils.HashManager;
+import utils.HashMap;
+import utils.HashMapOa;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// containsValue() of HashMap and HashMapOa with ELEMENT_COUNT cars, with and without the reverse index
+// of the values. Every call looks up either a car of the map or a car that is not in it, in turn.
+// putMap measures what the index adds to filling a map.
+
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(time = 1, timeUnit = TimeUnit.SECONDS)
+public class ValueIndexBenchmark {
+
+    static final int ELEMENT_COUNT = 80_000;
+
+    @Param({"false", "true"})
+    public boolean valueIndexed;
+
+    List<String> ids;
+    List<Car> cars;
+    // Cars of the maps and other cars, in turn
+    Car[] lookedUpCars;
+    int next = 0;
+    HashMap<String, Car> carsMap;
+    HashMapOa<String, Car> carsMapOa;
+
+    @Setup(Level.Trial)
+    public void fillMaps() {
+        ids = Benchmark.generateIds(ELEMENT_COUNT);
+        cars = Benchmark.generateCars(2 * ELEMENT_COUNT);
+        lookedUpCars = new Car[ELEMENT_COUNT];
+        for (int i = 0; i < ELEMENT_COUNT; i++) {
+            lookedUpCars[i] = cars.get(i % 2 == 0 ? i : ELEMENT_COUNT + i);
+        }
+        cars = cars.subList(0, ELEMENT_COUNT);
+        carsMap = putMap();
+        carsMapOa = new HashMapOa<>(HashMapOa.DEFAULT_INITIAL_CAPACITY, HashMapOa.DEFAULT_LOAD_FACTOR,
+                HashManager.HashType.DIVISION, HashMapOa.OpenAddressingType.LINEAR, valueIndexed);
+        Benchmark.putMappings(ids, cars, carsMapOa);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public boolean containsValueMap() {
+        next = (next + 1) % ELEMENT_COUNT;
+        return carsMap.containsValue(lookedUpCars[next]);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public boolean containsValueMapOa() {
+        next = (next + 1) % ELEMENT_COUNT;
+        return carsMapOa.containsValue(lookedUpCars[next]);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public HashMap<String, Car> putMap() {
+        HashMap<String, Car> map = new HashMap<>(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR,
+                HashManager.HashType.DIVISION, HashMap.DEFAULT_REHASH_TYPE, valueIndexed);
+        Benchmark.putMappings(ids, cars, map);
+        return map;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ValueIndexBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
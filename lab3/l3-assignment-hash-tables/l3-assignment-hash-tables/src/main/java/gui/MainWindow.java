@@ -11,6 +11,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.AdjustmentEvent;
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.stream.IntStream;
@@ -79,14 +80,18 @@ public class MainWindow extends JFrame implements ActionListener {
         Stream.of(MESSAGES.getString("cmbCollisionType1"),
                         MESSAGES.getString("cmbCollisionType2"),
                         MESSAGES.getString("cmbCollisionType3"),
-                        MESSAGES.getString("cmbCollisionType4"))
+                        MESSAGES.getString("cmbCollisionType4"),
+                        MESSAGES.getString("cmbCollisionType5"),
+                        MESSAGES.getString("cmbCollisionType6"))
                 .forEach(cmbCollisionTypes::addItem);
         cmbCollisionTypes.addActionListener(this);
 
         Stream.of(MESSAGES.getString("cmbHashFunction1"),
                         MESSAGES.getString("cmbHashFunction2"),
                         MESSAGES.getString("cmbHashFunction3"),
-                        MESSAGES.getString("cmbHashFunction4"))
+                        MESSAGES.getString("cmbHashFunction4"),
+                        MESSAGES.getString("cmbHashFunction5"),
+                        MESSAGES.getString("cmbHashFunction6"))
                 .forEach(cmbHashFunctions::addItem);
         cmbHashFunctions.addActionListener(this);
 
@@ -166,7 +171,12 @@ public class MainWindow extends JFrame implements ActionListener {
                         MESSAGES.getString("lblParam24"),
                         MESSAGES.getString("lblParam25"),
                         MESSAGES.getString("lblParam26"),
-                        MESSAGES.getString("lblParam27")},
+                        MESSAGES.getString("lblParam27"),
+                        MESSAGES.getString("lblParam28"),
+                        MESSAGES.getString("lblParam29"),
+                        MESSAGES.getString("lblParam30"),
+                        MESSAGES.getString("lblParam31"),
+                        MESSAGES.getString("lblParam32")},
                 new String[]{
                         MESSAGES.getString("tfParam21"),
                         MESSAGES.getString("tfParam22"),
@@ -174,7 +184,12 @@ public class MainWindow extends JFrame implements ActionListener {
                         MESSAGES.getString("tfParam24"),
                         MESSAGES.getString("tfParam25"),
                         MESSAGES.getString("tfParam26"),
-                        MESSAGES.getString("tfParam27")}, TF_WIDTH);
+                        MESSAGES.getString("tfParam27"),
+                        MESSAGES.getString("tfParam28"),
+                        MESSAGES.getString("tfParam29"),
+                        MESSAGES.getString("tfParam30"),
+                        MESSAGES.getString("tfParam31"),
+                        MESSAGES.getString("tfParam32")}, TF_WIDTH);
 
         // The panels of the two parameter tables are added to the light grey panel
         Stream.of(panParam1, panParam2).forEach(panParam12::add);
@@ -198,8 +213,10 @@ public class MainWindow extends JFrame implements ActionListener {
                     if (command.equals(mainWindowMenu.getMenu(0).getItem(0))) {
                         fileChooseMenu();
                     } else if (command.equals(mainWindowMenu.getMenu(0).getItem(1))) {
-                        KsGui.ounerr(taEvents, MESSAGES.getString("notImplemented"));
-                    } else if (command.equals(mainWindowMenu.getMenu(0).getItem(3))) {
+                        fileSaveMenu();
+                    } else if (command.equals(mainWindowMenu.getMenu(0).getItem(2))) {
+                        metricsExportMenu();
+                    } else if (command.equals(mainWindowMenu.getMenu(0).getItem(4))) {
                         System.exit(0);
                     } else if (command.equals(mainWindowMenu.getMenu(1).getItem(0))) {
                         JOptionPane.showOptionDialog(this,
@@ -243,6 +260,36 @@ public class MainWindow extends JFrame implements ActionListener {
                 }
             }
 
+            private void fileSaveMenu() {
+                if (map == null || map.isEmpty()) {
+                    KsGui.ounerr(taEvents, MESSAGES.getString("mapIsEmpty"));
+                    return;
+                }
+                JFileChooser fc = new JFileChooser(".");
+                if (fc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                    String filePath = fc.getSelectedFile().getAbsolutePath();
+                    try {
+                        map.save(filePath);
+                        KsGui.ou(taEvents, MESSAGES.getString("fileWasSaved"), filePath);
+                    } catch (UnsupportedOperationException e) {
+                        KsGui.ounerr(taEvents, MESSAGES.getString("notImplemented"));
+                    }
+                }
+            }
+
+            private void metricsExportMenu() throws IOException {
+                if (map == null || map.isEmpty()) {
+                    KsGui.ounerr(taEvents, MESSAGES.getString("mapIsEmpty"));
+                    return;
+                }
+                JFileChooser fc = new JFileChooser(".");
+                if (fc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                    String filePath = fc.getSelectedFile().getAbsolutePath();
+                    map.getMetrics().writeCsv(filePath);
+                    KsGui.ou(taEvents, MESSAGES.getString("metricsWereExported"), filePath);
+                }
+            }
+
         };
         // The menu bar is placed in this frame
         setJMenuBar(mainWindowMenu);
@@ -407,6 +454,12 @@ public class MainWindow extends JFrame implements ActionListener {
             case 3:
                 ht = HashManager.HashType.JCF;
                 break;
+            case 4:
+                ht = HashManager.HashType.FIBONACCI;
+                break;
+            case 5:
+                ht = HashManager.HashType.FASTRANGE;
+                break;
             default:
                 ht = HashManager.HashType.DIVISION;
                 break;
@@ -427,6 +480,12 @@ public class MainWindow extends JFrame implements ActionListener {
             case 3:
                 map = new ParsableHashMapOa<>(String::new, Car::new, initialCapacity, loadFactor, ht, HashMapOa.OpenAddressingType.DOUBLE_HASHING);
                 break;
+            case 4:
+                map = new ParsableHashMapOa<>(String::new, Car::new, initialCapacity, loadFactor, ht, HashMapOa.OpenAddressingType.ROBIN_HOOD);
+                break;
+            case 5:
+                map = new ParsableHashMapOa<>(String::new, Car::new, initialCapacity, loadFactor, ht, HashMapOa.OpenAddressingType.HOPSCOTCH);
+                break;
             default:
                 IntStream.of(1, 2).forEach(p -> panButtons.getButtons().get(p).setEnabled(false));
                 throw new ValidationException("notImplemented");
@@ -441,6 +500,7 @@ public class MainWindow extends JFrame implements ActionListener {
      * @param colorize determines whether to colour parameter values red, or not
      */
     private void updateHashtableParameters(boolean colorize) {
+        MapMetrics metrics = map.getMetrics();
         String[] parameters = new String[]{
                 String.valueOf(map.size()),
                 String.valueOf(map.getTableCapacity()),
@@ -448,7 +508,13 @@ public class MainWindow extends JFrame implements ActionListener {
                 String.valueOf(map.getRehashesCounter()),
                 String.valueOf(map.getLastUpdated()),
                 // Percentage of hash table elements occupied
-                String.format("%3.2f", (double) map.getNumberOfOccupied() / map.getTableCapacity() * 100) + "%"
+                String.format("%3.2f", (double) map.getNumberOfOccupied() / map.getTableCapacity() * 100) + "%",
+                formatMetric(metrics.getAverageLength()),
+                metrics.getLengthPercentile(50) == -1 ? "-1" : metrics.getLengthPercentile(50)
+                        + " / " + metrics.getLengthPercentile(90) + " / " + metrics.getLengthPercentile(99),
+                String.valueOf(metrics.getTombstones()),
+                formatMetric(map.getEqualsCallsPerLookup()),
+                formatMetric(metrics.getLastResizeNanos() / 1000.0)
                 // .. the new parameters continue here ..
         };
         for (int i = 0; i < parameters.length; i++) {
@@ -462,6 +528,9 @@ public class MainWindow extends JFrame implements ActionListener {
         }
     }
 
+    private static String formatMetric(double value) {
+        return value < 0 ? "-1" : String.format("%3.2f", value);
+    }
 
     /**
      * Class for checking the number entered in the JTextField object.
@@ -31,11 +31,14 @@ public abstract class MainWindowMenu extends JMenuBar implements ActionListener
         jMenuItem11.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_O, InputEvent.CTRL_DOWN_MASK));
         JMenuItem jMenuItem12 = new JMenuItem(MESSAGES.getString("menuItem12"));
         jMenuItem12.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK));
+        JMenuItem jMenuItem14 = new JMenuItem(MESSAGES.getString("menuItem14"));
+        jMenuItem14.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_E, InputEvent.CTRL_DOWN_MASK));
         JMenuItem jMenuItem13 = new JMenuItem(MESSAGES.getString("menuItem13"));
         jMenuItem13.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
 
         jMenu1.add(jMenuItem11);
         jMenu1.add(jMenuItem12);
+        jMenu1.add(jMenuItem14);
         jMenu1.addSeparator();
         jMenu1.add(jMenuItem13);
 
@@ -48,6 +51,7 @@ public abstract class MainWindowMenu extends JMenuBar implements ActionListener
         jMenuItem11.addActionListener(this);
         jMenuItem12.addActionListener(this);
         jMenuItem13.addActionListener(this);
+        jMenuItem14.addActionListener(this);
         jMenuItem21.addActionListener(this);
     }
 
@@ -0,0 +1,553 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The hash table with separate chaining that holds at most maximumSize pairs. When put() adds a pair
+ * to a full map, the pair chosen by the eviction policy is removed:
+ * <ul>
+ * <li>LRU - the least recently used pair;</li>
+ * <li>LFU - the least frequently used pair, the least recently used one among the pairs used equally often;</li>
+ * <li>W_TINY_LFU - a new pair enters a small LRU window; the pair leaving the window is admitted to the
+ * main part of the map only if its key was requested more often than the key of the main part's victim.
+ * The frequencies of the keys requested by get() or added by put(), including the removed keys, are
+ * estimated by a count-min sketch.</li>
+ * </ul>
+ * The order of the pairs is kept by a doubly linked list running through the nodes of the chains, so
+ * get() and put() do a constant amount of work besides the lookup. get() and contains() count as a use of
+ * the key and are counted as a hit or a miss. Long chains are not converted to tree bins, because
+ * the list links belong to the nodes.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class BoundedCacheMap<K, V> extends HashMap<K, V> {
+
+    public enum EvictionPolicy {
+        LRU,
+        LFU,
+        W_TINY_LFU
+    }
+
+    public static final EvictionPolicy DEFAULT_EVICTION_POLICY = EvictionPolicy.W_TINY_LFU;
+    // W_TINY_LFU: the share of the window in the map and of the protected segment in the main part
+    private static final double WINDOW_SHARE = 0.01;
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final int maximumSize;
+    private final EvictionPolicy policy;
+    // LRU: all the pairs. W_TINY_LFU: the window and the main part, made of the probation segment,
+    // where the pairs are admitted to, and the protected segment, where they move when used again.
+    // The least recently used pair is the head of a list.
+    private final NodeList<K, V> window = new NodeList<>(0);
+    private final NodeList<K, V> probation = new NodeList<>(0);
+    private final NodeList<K, V> protectedSegment = new NodeList<>(0);
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    // LFU: the sentinel of the lists of pairs with equal frequency, in ascending order of frequency
+    private final NodeList<K, V> frequencies = new NodeList<>(0);
+    private final FrequencySketch sketch;
+    // The pair added by the current put(), which is not evicted by it
+    private CacheNode<K, V> inserted;
+    // W_TINY_LFU: the key missed by the last get(), already counted in the sketch, null if the last get() hit
+    private K missedKey;
+    //--------------------------------------------------------------------------
+    //  Parameters of the cache
+    //--------------------------------------------------------------------------
+    private long hitsCounter = 0;
+    private long missesCounter = 0;
+    private long evictionsCounter = 0;
+
+    public BoundedCacheMap(int maximumSize) {
+        this(maximumSize, DEFAULT_EVICTION_POLICY);
+    }
+
+    public BoundedCacheMap(int maximumSize, EvictionPolicy policy) {
+        this(maximumSize, policy, DEFAULT_HASH_TYPE);
+    }
+
+    public BoundedCacheMap(int maximumSize, EvictionPolicy policy, HashManager.HashType ht) {
+        super(tableCapacityFor(maximumSize), DEFAULT_LOAD_FACTOR, ht);
+        if (policy == null) {
+            throw new IllegalArgumentException("Eviction policy is null");
+        }
+        this.maximumSize = maximumSize;
+        this.policy = policy;
+        windowCapacity = Math.max(1, (int) (maximumSize * WINDOW_SHARE));
+        protectedCapacity = (int) ((maximumSize - windowCapacity) * PROTECTED_SHARE);
+        sketch = policy == EvictionPolicy.W_TINY_LFU ? new FrequencySketch(maximumSize) : null;
+    }
+
+    /**
+     * Returns the table capacity that holds the maximum size plus the pair put() adds before evicting,
+     * so the table is never enlarged.
+     */
+    private static int tableCapacityFor(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+        }
+        return (int) Math.min(1 << 30, (long) ((maximumSize + 1L) / DEFAULT_LOAD_FACTOR) + 1);
+    }
+
+    /**
+     * Clears the cache, including its counters and key frequencies.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        frequencies.next = null;
+        if (sketch != null) {
+            sketch.clear();
+        }
+        missedKey = null;
+        hitsCounter = 0;
+        missesCounter = 0;
+        evictionsCounter = 0;
+    }
+
+    /**
+     * Adds the new key-value pair and evicts a pair if the cache holds more than maximumSize pairs.
+     *
+     * @param key
+     * @param value
+     * @return added value.
+     */
+    @Override
+    public V put(K key, V value) {
+        super.put(key, value);
+        evictIfInserted();
+        return value;
+    }
+
+    /**
+     * Computes a new value for the key and evicts a pair, as put() does, if a new pair was added.
+     * So do computeIfAbsent() and merge(); computeIfPresent() adds no pairs.
+     *
+     * @param key
+     * @param remappingFunction function computing the new value
+     * @return the new value associated with the key, or null if none.
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        V value = super.compute(key, remappingFunction);
+        evictIfInserted();
+        return value;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = super.computeIfAbsent(key, mappingFunction);
+        evictIfInserted();
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        V newValue = super.merge(key, value, remappingFunction);
+        evictIfInserted();
+        return newValue;
+    }
+
+    private void evictIfInserted() {
+        if (inserted != null) {
+            evictEntries();
+            inserted = null;
+        }
+    }
+
+    /**
+     * Adds the pairs of the given map one by one, evicting as put() does.
+     *
+     * @param map
+     */
+    @Override
+    public void putAll(java.util.Map<? extends K, ? extends V> map) {
+        map.forEach((key, value) -> {
+            if (key == null || value == null) {
+                throw new IllegalArgumentException("Key or value is null in putAll(Map map)");
+            }
+            put(key, value);
+        });
+    }
+
+    /**
+     * Adds the pairs keys[i]-values[i] one by one, evicting as put() does.
+     *
+     * @param keys
+     * @param values
+     */
+    @Override
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Different number of keys and values in putAll(K[] keys, V[] values)");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || values[i] == null) {
+                throw new IllegalArgumentException("Key or value is null in putAll(K[] keys, V[] values)");
+            }
+            put(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Returns the value associated with the key and counts a hit or a miss. A missed key is remembered,
+     * so a put() of it right after the miss, as in filling a cache on a miss, does not count it again.
+     *
+     * @param key
+     * @return the value associated with the key.
+     */
+    @Override
+    public V get(K key) {
+        if (sketch != null && key != null) {
+            // a missing key is counted too: its frequency decides if it is admitted when it is put
+            sketch.increment(key.hashCode());
+        }
+        V value = super.get(key);
+        if (sketch != null) {
+            missedKey = value == null ? key : null;
+        }
+        if (value == null) {
+            missesCounter++;
+        } else {
+            hitsCounter++;
+        }
+        return value;
+    }
+
+    /**
+     * Looks up the keys one by one by get(), so every key counts as a use and as a hit or a miss.
+     *
+     * @param keys keys.
+     * @param out  array for the values, as long as keys.
+     */
+    @Override
+    public void getAll(K[] keys, V[] out) {
+        if (keys.length != out.length) {
+            throw new IllegalArgumentException("Different number of keys and values in getAll(K[] keys, V[] out)");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            out[i] = get(keys[i]);
+        }
+    }
+
+    @Override
+    protected Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+        return new CacheNode<>(hash, key, value, next);
+    }
+
+    @Override
+    protected boolean isTreeifyEnabled() {
+        return false;
+    }
+
+    @Override
+    protected void afterNodeInsertion(Node<K, V> node) {
+        CacheNode<K, V> n = (CacheNode<K, V>) node;
+        inserted = n;
+        switch (policy) {
+            case LRU:
+                window.addLast(n);
+                break;
+            case LFU:
+                NodeList<K, V> lowest = frequencies.next;
+                if (lowest == null || lowest.frequency != 1) {
+                    lowest = frequencies.insertAfter(1);
+                }
+                lowest.addLast(n);
+                break;
+            case W_TINY_LFU:
+                if (missedKey == null || !missedKey.equals(n.key)) {
+                    sketch.increment(n.hash);
+                }
+                missedKey = null;
+                window.addLast(n);
+                break;
+        }
+    }
+
+    @Override
+    protected void afterNodeAccess(Node<K, V> node) {
+        CacheNode<K, V> n = (CacheNode<K, V>) node;
+        switch (policy) {
+            case LRU:
+                window.moveToLast(n);
+                break;
+            case LFU:
+                NodeList<K, V> list = n.list;
+                NodeList<K, V> higher = list.next;
+                if (higher == null || higher.frequency != list.frequency + 1) {
+                    higher = list.insertAfter(list.frequency + 1);
+                }
+                unlink(n);
+                higher.addLast(n);
+                break;
+            case W_TINY_LFU:
+                if (n.list != probation) {
+                    n.list.moveToLast(n);
+                    break;
+                }
+                probation.unlink(n);
+                protectedSegment.addLast(n);
+                if (protectedSegment.size > protectedCapacity) {
+                    CacheNode<K, V> demoted = protectedSegment.head;
+                    protectedSegment.unlink(demoted);
+                    probation.addLast(demoted);
+                }
+                break;
+        }
+    }
+
+    @Override
+    protected void afterNodeRemoval(Node<K, V> node) {
+        unlink((CacheNode<K, V>) node);
+    }
+
+    private void unlink(CacheNode<K, V> n) {
+        NodeList<K, V> list = n.list;
+        list.unlink(n);
+        if (policy == EvictionPolicy.LFU && list.size == 0) {
+            list.prev.next = list.next;
+            if (list.next != null) {
+                list.next.prev = list.prev;
+            }
+        }
+    }
+
+    private void evictEntries() {
+        if (policy == EvictionPolicy.W_TINY_LFU) {
+            while (window.size > windowCapacity) {
+                CacheNode<K, V> candidate = window.head;
+                if (probation.size + protectedSegment.size < maximumSize - windowCapacity) {
+                    window.unlink(candidate);
+                    probation.addLast(candidate);
+                    continue;
+                }
+                CacheNode<K, V> victim = probation.head != null ? probation.head : protectedSegment.head;
+                // on a tie the pair already in the main part stays
+                if (victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                    evict(candidate);
+                } else {
+                    evict(victim);
+                    window.unlink(candidate);
+                    probation.addLast(candidate);
+                }
+            }
+        }
+        while (size > maximumSize) {
+            evict(victim());
+        }
+    }
+
+    private CacheNode<K, V> victim() {
+        CacheNode<K, V> victim;
+        if (policy == EvictionPolicy.LFU) {
+            NodeList<K, V> lowest = frequencies.next;
+            victim = lowest.head;
+            if (victim == inserted) {
+                victim = victim.after != null ? victim.after : lowest.next.head;
+            }
+        } else {
+            victim = window.head;
+        }
+        return victim;
+    }
+
+    private void evict(CacheNode<K, V> victim) {
+        super.remove(victim.key);
+        evictionsCounter++;
+    }
+
+    /**
+     * Returns the largest number of pairs the cache holds.
+     *
+     * @return maximum size.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the eviction policy of the cache.
+     *
+     * @return eviction policy.
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of get() calls that found the key.
+     *
+     * @return number of hits.
+     */
+    @Override
+    public long getHitsCounter() {
+        return hitsCounter;
+    }
+
+    /**
+     * Returns the number of get() calls that did not find the key.
+     *
+     * @return number of misses.
+     */
+    @Override
+    public long getMissesCounter() {
+        return missesCounter;
+    }
+
+    /**
+     * Returns the number of pairs removed to keep the size within maximumSize.
+     *
+     * @return number of evictions.
+     */
+    @Override
+    public long getEvictionsCounter() {
+        return evictionsCounter;
+    }
+
+    private static final class CacheNode<K, V> extends Node<K, V> {
+
+        // Neighbors in the list of the policy
+        private CacheNode<K, V> before;
+        private CacheNode<K, V> after;
+        private NodeList<K, V> list;
+
+        CacheNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    /**
+     * Doubly linked list of cache nodes, from the least to the most recently used one.
+     * The LFU lists of pairs with equal frequency are linked in turn.
+     */
+    private static final class NodeList<K, V> {
+
+        private CacheNode<K, V> head;
+        private CacheNode<K, V> tail;
+        private int size;
+        private final long frequency;
+        private NodeList<K, V> prev;
+        private NodeList<K, V> next;
+
+        NodeList(long frequency) {
+            this.frequency = frequency;
+        }
+
+        void addLast(CacheNode<K, V> n) {
+            n.list = this;
+            n.before = tail;
+            n.after = null;
+            if (tail == null) {
+                head = n;
+            } else {
+                tail.after = n;
+            }
+            tail = n;
+            size++;
+        }
+
+        void unlink(CacheNode<K, V> n) {
+            if (n.before == null) {
+                head = n.after;
+            } else {
+                n.before.after = n.after;
+            }
+            if (n.after == null) {
+                tail = n.before;
+            } else {
+                n.after.before = n.before;
+            }
+            n.before = null;
+            n.after = null;
+            size--;
+        }
+
+        void moveToLast(CacheNode<K, V> n) {
+            if (n != tail) {
+                unlink(n);
+                addLast(n);
+            }
+        }
+
+        NodeList<K, V> insertAfter(long frequency) {
+            NodeList<K, V> list = new NodeList<>(frequency);
+            list.prev = this;
+            list.next = next;
+            if (next != null) {
+                next.prev = list;
+            }
+            next = list;
+            return list;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Count-min sketch of the key frequencies: DEPTH rows of 4-bit counters, a counter per row chosen by
+     * the hash code of the key. The estimate is the smallest of the counters, so collisions can only
+     * increase it. When the number of increments reaches 10 times the maximum size, all the counters are
+     * halved, so the frequencies of the keys used long ago fade away.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[] counters;
+        private final int mask;
+        private final int samplePeriod;
+        private int samples = 0;
+
+        FrequencySketch(int maximumSize) {
+            int width = HashManager.tableSizeFor(Math.max(16, maximumSize), HashManager.HashType.JCF);
+            counters = new byte[DEPTH * width];
+            mask = width - 1;
+            samplePeriod = maximumSize > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : 10 * maximumSize;
+        }
+
+        void increment(int hash) {
+            for (int row = 0; row < DEPTH; row++) {
+                int i = index(hash, row);
+                if (counters[i] < MAX_COUNT) {
+                    counters[i]++;
+                }
+            }
+            if (++samples >= samplePeriod) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                samples /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return row * (mask + 1) + ((h ^ (h >>> 16)) & mask);
+        }
+
+        void clear() {
+            Arrays.fill(counters, (byte) 0);
+            samples = 0;
+        }
+    }
+}
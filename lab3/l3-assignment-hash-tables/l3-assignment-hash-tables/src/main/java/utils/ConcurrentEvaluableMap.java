@@ -0,0 +1,34 @@
+package utils;
+
+import java.util.function.BiFunction;
+
+/**
+ * Interface describes the hash map that can be shared by several threads.
+ * In addition to the single operations, it provides atomic check-then-act operations.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public interface ConcurrentEvaluableMap<K, V> extends EvaluableMap<K, V> {
+
+    /**
+     * Adds the key-value pair only if the key does not exist in the hash table.
+     *
+     * @param key
+     * @param value
+     * @return the value currently associated with the key, or null if the value was added.
+     */
+    V putIfAbsent(K key, V value);
+
+    /**
+     * Atomically computes a new value for the key from the key and its current value
+     * (null, if the key does not exist). If the new value is null, the pair is removed.
+     * computeIfAbsent(), computeIfPresent() and merge() of Map call it, so they are atomic too.
+     *
+     * @param key
+     * @param remappingFunction function computing the new value
+     * @return the new value associated with the key, or null if none.
+     */
+    @Override
+    V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction);
+}
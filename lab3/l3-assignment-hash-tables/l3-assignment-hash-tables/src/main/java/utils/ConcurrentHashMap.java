@@ -0,0 +1,529 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * The implementation of a thread-safe hash table based on chaining.
+ * The table is split into segments, each of them is a small chained hash table guarded by its own lock
+ * (lock striping), so threads updating different segments do not wait for each other.
+ * Reads take no locks: chain nodes are immutable except for the value, removal copies the
+ * nodes in front of the removed one, and rehash builds a new table of copied nodes.
+ *
+ * @param <K> key type of hash table
+ * @param <V> value type of hash table
+ */
+public class ConcurrentHashMap<K, V> implements ConcurrentEvaluableMap<K, V> {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 64;
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    public static final HashManager.HashType DEFAULT_HASH_TYPE = HashManager.HashType.DIVISION;
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    // segments of the hash table
+    private final Segment<K, V>[] segments;
+    // the number of bits to shift the spread hash to get the segment index
+    private final int segmentShift;
+    // hash function used inside the segments
+    private final HashManager.HashType ht;
+
+    public ConcurrentHashMap() {
+        this(DEFAULT_HASH_TYPE);
+    }
+
+    public ConcurrentHashMap(HashManager.HashType ht) {
+        this(DEFAULT_INITIAL_CAPACITY, ht);
+    }
+
+    public ConcurrentHashMap(int initialCapacity, HashManager.HashType ht) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, ht, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param initialCapacity  total initial capacity of all segments
+     * @param loadFactor       load factor of every segment
+     * @param ht               hash function used inside the segments
+     * @param concurrencyLevel estimated number of updating threads, rounded up to a power of two segments
+     */
+    public ConcurrentHashMap(int initialCapacity, float loadFactor, HashManager.HashType ht, int concurrencyLevel) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if ((loadFactor <= 0.0) || (loadFactor > 1.0)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        if (concurrencyLevel <= 0 || concurrencyLevel > (1 << 16)) {
+            throw new IllegalArgumentException("Illegal concurrency level: " + concurrencyLevel);
+        }
+
+        int segmentCount = Integer.highestOneBit(concurrencyLevel);
+        if (segmentCount < concurrencyLevel) {
+            segmentCount <<= 1;
+        }
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.ht = ht;
+        this.segments = newSegments(segmentCount);
+        int segmentCapacity = Math.max(1, (initialCapacity + segmentCount - 1) / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity, loadFactor, ht);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment<K, V> segment : segments) {
+            if (segment.count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of key-value pairs. If the map is being updated concurrently,
+     * the result is only an estimate.
+     *
+     * @return the number of key-value pairs.
+     */
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.count;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key or value is null in put(K key, V value)");
+        }
+        int hash = key.hashCode();
+        Segment<K, V> segment = segmentFor(hash);
+        segment.put(hash, key, value, false);
+        return value;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key or value is null in putIfAbsent(K key, V value)");
+        }
+        int hash = key.hashCode();
+        return segmentFor(hash).put(hash, key, value, true);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key or function is null in compute(K key, BiFunction remappingFunction)");
+        }
+        int hash = key.hashCode();
+        return segmentFor(hash).compute(hash, key, remappingFunction);
+    }
+
+    /**
+     * Returns the value associated with the key. No locks are taken.
+     *
+     * @param key
+     * @return the value associated with the key.
+     */
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in get(K key)");
+        }
+        int hash = key.hashCode();
+        return segmentFor(hash).get(hash, key);
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in remove(K key)");
+        }
+        int hash = key.hashCode();
+        return segmentFor(hash).remove(hash, key);
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in contains(K key)");
+        }
+
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in replace(K key, V oldValue, V newValue)");
+        }
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replace(K key, V oldValue, V newValue)");
+        }
+        int hash = key.hashCode();
+        return segmentFor(hash).replace(hash, key, oldValue, newValue);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int i = 0; i < table.length(); i++) {
+                for (Node<K, V> node = table.get(i); node != null; node = node.next) {
+                    if (node.value.equals(value)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int i = 0; i < table.length(); i++) {
+                for (Node<K, V> node = table.get(i); node != null; node = node.next) {
+                    result.append(node).append(System.lineSeparator());
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Selects the segment by the high bits of the multiplied hash code, so the segment index does not
+     * depend on the low bits used by the hash function inside the segment. The multiplier differs from
+     * the one of FIBONACCI hashing, which takes the high bits as well.
+     */
+    private Segment<K, V> segmentFor(int hash) {
+        return segments.length == 1 ? segments[0] : segments[(hash * 0x85EBCA6B) >>> segmentShift];
+    }
+
+    /**
+     * Returns the maximum length of the chain among all segments.
+     *
+     * @return Maximum chain length.
+     */
+    @Override
+    public int getMaxChainSize() {
+        int max = 0;
+        for (Segment<K, V> segment : segments) {
+            max = Math.max(max, segment.maxChainSize);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the total number of rehashes of all segments.
+     *
+     * @return Number of rehashes.
+     */
+    @Override
+    public int getRehashesCounter() {
+        int counter = 0;
+        for (Segment<K, V> segment : segments) {
+            counter += segment.rehashesCounter;
+        }
+        return counter;
+    }
+
+    /**
+     * Returns the total capacity of all segments.
+     *
+     * @return Hash table capacity.
+     */
+    @Override
+    public int getTableCapacity() {
+        int capacity = 0;
+        for (Segment<K, V> segment : segments) {
+            capacity += segment.table.length();
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the chain index, within its segment, of the last updated chain. Every segment keeps
+     * the time of its own last update, so the updates of different segments share no field;
+     * the segment updated last is found by scanning them.
+     *
+     * @return the index of the last updated chain.
+     */
+    @Override
+    public int getLastUpdated() {
+        Segment<K, V> last = null;
+        for (Segment<K, V> segment : segments) {
+            if (segment.lastUpdatedNanos != 0 && (last == null || segment.lastUpdatedNanos - last.lastUpdatedNanos > 0)) {
+                last = segment;
+            }
+        }
+        return last == null ? 0 : last.lastUpdatedChain;
+    }
+
+    /**
+     * Returns the total number of chains of all segments.
+     *
+     * @return the number of chains.
+     */
+    @Override
+    public int getNumberOfOccupied() {
+        int chains = 0;
+        for (Segment<K, V> segment : segments) {
+            chains += segment.chainsCounter;
+        }
+        return chains;
+    }
+
+    /**
+     * Creates an array of the segments; a generic array cannot be created directly.
+     *
+     * @param count
+     * @return array of null segments.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] newSegments(int count) {
+        return (Segment<K, V>[]) new Segment<?, ?>[count];
+    }
+
+    /**
+     * Segment is a chained hash table guarded by its own lock. The lock is taken by updates only.
+     */
+    private static final class Segment<K, V> extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private final float loadFactor;
+        private final HashManager.HashType ht;
+        // chains of the segment; a new array is published on every rehash
+        private volatile AtomicReferenceArray<Node<K, V>> table;
+        private volatile int count = 0;
+        // the following fields are updated under the lock
+        private volatile int maxChainSize = 0;
+        private volatile int rehashesCounter = 0;
+        private volatile int chainsCounter = 0;
+        private volatile int lastUpdatedChain = 0;
+        // System.nanoTime() of the last update of lastUpdatedChain, 0 if none
+        private volatile long lastUpdatedNanos = 0;
+
+        private Segment(int initialCapacity, float loadFactor, HashManager.HashType ht) {
+            this.loadFactor = loadFactor;
+            this.ht = ht;
+            this.table = new AtomicReferenceArray<>(HashManager.tableSizeFor(initialCapacity, ht));
+        }
+
+        private V get(int hash, K key) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            Node<K, V> node = getInChain(hash, key, tab.get(HashManager.hash(hash, tab.length(), ht)));
+            return node == null ? null : node.value;
+        }
+
+        private V put(int hash, K key, V value, boolean onlyIfAbsent) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = HashManager.hash(hash, tab.length(), ht);
+                Node<K, V> first = tab.get(index);
+                Node<K, V> node = getInChain(hash, key, first);
+                if (node != null) {
+                    V oldValue = node.value;
+                    if (!onlyIfAbsent) {
+                        node.value = value;
+                        markUpdated(index);
+                    }
+                    return oldValue;
+                }
+                addNode(tab, index, first, hash, key, value);
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        private V compute(int hash, K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = HashManager.hash(hash, tab.length(), ht);
+                Node<K, V> first = tab.get(index);
+                Node<K, V> node = getInChain(hash, key, first);
+                V newValue = remappingFunction.apply(key, node == null ? null : node.value);
+                if (node == null) {
+                    if (newValue != null) {
+                        addNode(tab, index, first, hash, key, newValue);
+                    }
+                } else if (newValue == null) {
+                    removeNode(tab, index, first, node);
+                } else {
+                    node.value = newValue;
+                    markUpdated(index);
+                }
+                return newValue;
+            } finally {
+                unlock();
+            }
+        }
+
+        private V remove(int hash, K key) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = HashManager.hash(hash, tab.length(), ht);
+                Node<K, V> first = tab.get(index);
+                Node<K, V> node = getInChain(hash, key, first);
+                if (node == null) {
+                    return null;
+                }
+                removeNode(tab, index, first, node);
+                return node.value;
+            } finally {
+                unlock();
+            }
+        }
+
+        private boolean replace(int hash, K key, V oldValue, V newValue) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = HashManager.hash(hash, tab.length(), ht);
+                Node<K, V> node = getInChain(hash, key, tab.get(index));
+                if (node != null && node.value.equals(oldValue)) {
+                    node.value = newValue;
+                    markUpdated(index);
+                    return true;
+                }
+                return false;
+            } finally {
+                unlock();
+            }
+        }
+
+        private void clear() {
+            lock();
+            try {
+                table = new AtomicReferenceArray<>(table.length());
+                count = 0;
+                maxChainSize = 0;
+                rehashesCounter = 0;
+                chainsCounter = 0;
+                lastUpdatedChain = 0;
+                lastUpdatedNanos = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        // Must be called under the lock
+        private void addNode(AtomicReferenceArray<Node<K, V>> tab, int index, Node<K, V> first, int hash, K key, V value) {
+            if (first == null) {
+                chainsCounter++;
+            }
+            tab.set(index, new Node<>(hash, key, value, first));
+            maxChainSize = Math.max(maxChainSize, chainLength(tab.get(index)));
+            markUpdated(index);
+            count++;
+            if (count > tab.length() * loadFactor) {
+                rehash(tab);
+            }
+        }
+
+        // Must be called under the lock
+        private void markUpdated(int index) {
+            lastUpdatedChain = index;
+            lastUpdatedNanos = System.nanoTime();
+        }
+
+        // Must be called under the lock. Nodes in front of the removed one are copied,
+        // so a reader walking the old chain still sees a consistent chain.
+        private void removeNode(AtomicReferenceArray<Node<K, V>> tab, int index, Node<K, V> first, Node<K, V> node) {
+            Node<K, V> newFirst = node.next;
+            for (Node<K, V> n = first; n != node; n = n.next) {
+                newFirst = new Node<>(n.hash, n.key, n.value, newFirst);
+            }
+            if (newFirst == null) {
+                chainsCounter--;
+            }
+            tab.set(index, newFirst);
+            count--;
+        }
+
+        // Must be called under the lock. The old table stays intact for concurrent readers.
+        private void rehash(AtomicReferenceArray<Node<K, V>> oldTable) {
+            AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<>(oldTable.length() * 2);
+            int chains = 0;
+            int maxChain = 0;
+            for (int i = 0; i < oldTable.length(); i++) {
+                for (Node<K, V> n = oldTable.get(i); n != null; n = n.next) {
+                    int index = HashManager.hash(n.hash, newTable.length(), ht);
+                    Node<K, V> first = newTable.get(index);
+                    if (first == null) {
+                        chains++;
+                    }
+                    Node<K, V> node = new Node<>(n.hash, n.key, n.value, first);
+                    newTable.set(index, node);
+                    maxChain = Math.max(maxChain, chainLength(node));
+                }
+            }
+            chainsCounter = chains;
+            maxChainSize = maxChain;
+            rehashesCounter++;
+            table = newTable;
+        }
+
+        private Node<K, V> getInChain(int hash, K key, Node<K, V> node) {
+            for (Node<K, V> n = node; n != null; n = n.next) {
+                if (n.hash == hash && n.key.equals(key)) {
+                    return n;
+                }
+            }
+            return null;
+        }
+
+        private int chainLength(Node<K, V> node) {
+            int length = 0;
+            for (Node<K, V> n = node; n != null; n = n.next) {
+                length++;
+            }
+            return length;
+        }
+    }
+
+    private static final class Node<K, V> {
+
+        // Hash code of the key
+        private final int hash;
+        // Key
+        private final K key;
+        // Value, the only mutable field
+        private volatile V value;
+        // Pointer to the next node in the chain
+        private final Node<K, V> next;
+
+        private Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * The implementation of hash table based on cuckoo hashing. There are two tables, kept in one
+ * array one after another, and two hash functions, one per table. A key is stored only in one of
+ * its two places, so get() probes at most two places, plus the stash if it is not empty.
+ * put() places the key into one of its places; if both are occupied, the key evicts the occupant
+ * of the first one, which moves to its other place, possibly evicting the next key, and so on.
+ * If the eviction chain gets too long (a cycle), the last evicted pair is put into the small stash.
+ * When the stash overflows, the tables are doubled. With the fixed hash functions the keys whose
+ * hash codes are equal can not be separated by rehashing, so the stash is allowed to grow for them.
+ *
+ * @param <K> key type of hash table
+ * @param <V> value type of hash table
+ */
+public class CuckooHashMap<K, V> implements EvaluableMap<K, V> {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+    // The load of two tables with one place per position is at most 0.5 before evictions start to loop
+    public static final float DEFAULT_LOAD_FACTOR = 0.45f;
+    public static final HashManager.HashType DEFAULT_HASH_TYPE = HashManager.HashType.JCF;
+    public static final HashManager.HashType DEFAULT_SECOND_HASH_TYPE = HashManager.HashType.MULTIPLICATION;
+    public static final int STASH_CAPACITY = 4;
+
+    // Keys, values and hash codes of both tables: [0, tableLength) and [tableLength, 2 * tableLength)
+    protected Object[] keys;
+    protected Object[] values;
+    protected int[] hashes;
+    protected int tableLength;
+    // Pairs which could not be placed into the tables
+    protected Object[] stashKeys = new Object[STASH_CAPACITY];
+    protected Object[] stashValues = new Object[STASH_CAPACITY];
+    protected int[] stashHashes = new int[STASH_CAPACITY];
+    protected int stashSize = 0;
+    // The stash size which causes a rehash
+    protected int stashLimit = STASH_CAPACITY;
+    // The amount of key-value pairs
+    protected int size = 0;
+    // Load factor
+    protected float loadFactor;
+    // Hash functions of the first and of the second table
+    protected HashManager.HashType ht;
+    protected HashManager.HashType secondHt;
+    //--------------------------------------------------------------------------
+    //  Parameters of hash table
+    //--------------------------------------------------------------------------
+    // The amount of rehashes
+    protected int rehashesCounter = 0;
+    // The index of last updated element
+    protected int lastUpdated = 0;
+    // The longest chain of evictions since the last rehash
+    protected int maxProbeDistance = 0;
+    // The number of lookups and of key.equals() calls made by them
+    protected long lookupsCounter = 0;
+    protected long equalsCounter = 0;
+
+    public CuckooHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public CuckooHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, DEFAULT_HASH_TYPE, DEFAULT_SECOND_HASH_TYPE);
+    }
+
+    /**
+     * @param initialCapacity capacity of both tables together
+     * @param loadFactor      load factor of both tables together, up to 0.5
+     * @param ht              hash function of the first table
+     * @param secondHt        hash function of the second table, which should differ from ht
+     */
+    public CuckooHashMap(int initialCapacity, float loadFactor, HashManager.HashType ht, HashManager.HashType secondHt) {
+        if (initialCapacity <= 1 || initialCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if ((loadFactor <= 0.0) || (loadFactor > 0.5)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        if (ht == secondHt) {
+            throw new IllegalArgumentException("The hash functions of the tables are equal: " + ht);
+        }
+
+        this.loadFactor = loadFactor;
+        this.ht = ht;
+        this.secondHt = secondHt;
+        // both tables have the same length, a power of two if either of the hash functions requires it
+        allocate(HashManager.tableSizeFor(initialCapacity / 2, HashManager.requiresPowerOfTwo(ht) ? ht : secondHt));
+    }
+
+    private void allocate(int length) {
+        tableLength = length;
+        keys = new Object[2 * length];
+        values = new Object[2 * length];
+        hashes = new int[2 * length];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        Arrays.fill(stashKeys, null);
+        Arrays.fill(stashValues, null);
+        stashSize = 0;
+        stashLimit = STASH_CAPACITY;
+        size = 0;
+        lastUpdated = 0;
+        rehashesCounter = 0;
+        maxProbeDistance = 0;
+        lookupsCounter = 0;
+        equalsCounter = 0;
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in contains(K key)");
+        }
+
+        int hash = key.hashCode();
+        return find(key, hash) != -1 || findInStash(key, hash) != -1;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key or value is null in put(K key, V value)");
+        }
+        int hash = key.hashCode();
+        int position = find(key, hash);
+        if (position != -1) {
+            values[position] = value;
+            lastUpdated = position;
+            return value;
+        }
+        int stashIndex = findInStash(key, hash);
+        if (stashIndex != -1) {
+            stashValues[stashIndex] = value;
+            return value;
+        }
+
+        size++;
+        if (size > 2 * tableLength * loadFactor) {
+            rehash();
+        }
+        place(hash, key, value);
+        if (stashSize > stashLimit) {
+            rehash();
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in get(K key)");
+        }
+
+        int hash = key.hashCode();
+        int position = find(key, hash);
+        if (position != -1) {
+            return (V) values[position];
+        }
+        int stashIndex = findInStash(key, hash);
+        return stashIndex == -1 ? null : (V) stashValues[stashIndex];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in remove(K key)");
+        }
+
+        int hash = key.hashCode();
+        int position = find(key, hash);
+        if (position != -1) {
+            V value = (V) values[position];
+            keys[position] = null;
+            values[position] = null;
+            size--;
+            unstash(position);
+            return value;
+        }
+        int stashIndex = findInStash(key, hash);
+        if (stashIndex == -1) {
+            return null;
+        }
+        V value = (V) stashValues[stashIndex];
+        removeFromStash(stashIndex);
+        size--;
+        return value;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in replace(K key, V oldValue, V newValue)");
+        }
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replace(K key, V oldValue, V newValue)");
+        }
+
+        int hash = key.hashCode();
+        int position = find(key, hash);
+        if (position != -1) {
+            if (values[position].equals(oldValue)) {
+                values[position] = newValue;
+                lastUpdated = position;
+                return true;
+            }
+            return false;
+        }
+        int stashIndex = findInStash(key, hash);
+        if (stashIndex != -1 && stashValues[stashIndex].equals(oldValue)) {
+            stashValues[stashIndex] = newValue;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && values[i].equals(value)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < stashSize; i++) {
+            if (stashValues[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                result.append(keys[i]).append('=').append(values[i]).append(System.lineSeparator());
+            }
+        }
+        for (int i = 0; i < stashSize; i++) {
+            result.append(stashKeys[i]).append('=').append(stashValues[i]).append(System.lineSeparator());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the position of the key in the tables or -1. Only two places are probed.
+     */
+    private int find(Object key, int hash) {
+        lookupsCounter++;
+        int position = firstPosition(hash);
+        if (keys[position] != null && hashes[position] == hash) {
+            equalsCounter++;
+            if (keys[position].equals(key)) {
+                return position;
+            }
+        }
+        position = secondPosition(hash);
+        if (keys[position] != null && hashes[position] == hash) {
+            equalsCounter++;
+            if (keys[position].equals(key)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private int findInStash(Object key, int hash) {
+        for (int i = 0; i < stashSize; i++) {
+            if (stashHashes[i] == hash && stashKeys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Places the pair, which is not in the map yet, evicting other pairs if needed.
+     * The pair evicted last is put into the stash if the eviction chain gets too long.
+     */
+    private void place(int hash, Object key, Object value) {
+        int position = firstPosition(hash);
+        if (keys[position] != null && keys[secondPosition(hash)] == null) {
+            position = secondPosition(hash);
+        }
+        int maxEvictions = maxEvictions();
+        for (int evictions = 0; evictions < maxEvictions; evictions++) {
+            Object evictedKey = keys[position];
+            Object evictedValue = values[position];
+            int evictedHash = hashes[position];
+            keys[position] = key;
+            values[position] = value;
+            hashes[position] = hash;
+            lastUpdated = position;
+            if (evictedKey == null) {
+                maxProbeDistance = Math.max(maxProbeDistance, evictions);
+                return;
+            }
+            key = evictedKey;
+            value = evictedValue;
+            hash = evictedHash;
+            position = position < tableLength ? secondPosition(hash) : firstPosition(hash);
+        }
+        maxProbeDistance = Math.max(maxProbeDistance, maxEvictions);
+        addToStash(hash, key, value);
+    }
+
+    /**
+     * Moves a stashed pair into the freed position, if it is one of its places.
+     */
+    private void unstash(int position) {
+        for (int i = 0; i < stashSize; i++) {
+            if (firstPosition(stashHashes[i]) == position || secondPosition(stashHashes[i]) == position) {
+                keys[position] = stashKeys[i];
+                values[position] = stashValues[i];
+                hashes[position] = stashHashes[i];
+                removeFromStash(i);
+                return;
+            }
+        }
+    }
+
+    private void addToStash(int hash, Object key, Object value) {
+        if (stashSize == stashKeys.length) {
+            stashKeys = Arrays.copyOf(stashKeys, stashSize * 2);
+            stashValues = Arrays.copyOf(stashValues, stashSize * 2);
+            stashHashes = Arrays.copyOf(stashHashes, stashSize * 2);
+        }
+        stashKeys[stashSize] = key;
+        stashValues[stashSize] = value;
+        stashHashes[stashSize] = hash;
+        stashSize++;
+    }
+
+    private void removeFromStash(int index) {
+        stashSize--;
+        stashKeys[index] = stashKeys[stashSize];
+        stashValues[index] = stashValues[stashSize];
+        stashHashes[index] = stashHashes[stashSize];
+        stashKeys[stashSize] = null;
+        stashValues[stashSize] = null;
+    }
+
+    /**
+     * Doubles the tables and places all the pairs again, the stashed ones too.
+     * The pairs which are stashed even then are kept in the stash, which may grow.
+     */
+    private void rehash() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        Object[] oldStashKeys = Arrays.copyOf(stashKeys, stashSize);
+        Object[] oldStashValues = Arrays.copyOf(stashValues, stashSize);
+        int[] oldStashHashes = Arrays.copyOf(stashHashes, stashSize);
+        Arrays.fill(stashKeys, null);
+        Arrays.fill(stashValues, null);
+        stashSize = 0;
+        allocate(tableLength * 2);
+        maxProbeDistance = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                place(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+        for (int i = 0; i < oldStashKeys.length; i++) {
+            place(oldStashHashes[i], oldStashKeys[i], oldStashValues[i]);
+        }
+        stashLimit = Math.max(STASH_CAPACITY, stashSize * 2);
+        rehashesCounter++;
+    }
+
+    private int firstPosition(int hash) {
+        return HashManager.hash(hash, tableLength, ht);
+    }
+
+    private int secondPosition(int hash) {
+        return tableLength + HashManager.hash(hash, tableLength, secondHt);
+    }
+
+    /**
+     * The length of the eviction chain, after which a cycle is assumed: a few times log2 of the table length.
+     */
+    private int maxEvictions() {
+        return 3 * (32 - Integer.numberOfLeadingZeros(tableLength)) + 8;
+    }
+
+    /**
+     * Returns the number of rehashes occurred in the hash table.
+     *
+     * @return number of rehashes.
+     */
+    @Override
+    public int getRehashesCounter() {
+        return rehashesCounter;
+    }
+
+    /**
+     * Returns the capacity of both tables.
+     *
+     * @return capacity of hash table.
+     */
+    @Override
+    public int getTableCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the index of last update element of the hash table.
+     *
+     * @return the index of last update element of the hash table.
+     */
+    @Override
+    public int getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Returns the number of occupied places in both tables, the stash excluded.
+     *
+     * @return the number of occupied places in the hash table.
+     */
+    @Override
+    public int getNumberOfOccupied() {
+        return size - stashSize;
+    }
+
+    /**
+     * Returns the longest chain of evictions made by put() since the last rehash.
+     *
+     * @return the maximum number of evictions.
+     */
+    @Override
+    public int getMaxProbeDistance() {
+        return maxProbeDistance;
+    }
+
+    /**
+     * Returns the average number of key.equals() calls per lookup in the tables.
+     *
+     * @return equals() calls per lookup.
+     */
+    @Override
+    public double getEqualsCallsPerLookup() {
+        return lookupsCounter == 0 ? 0 : (double) equalsCounter / lookupsCounter;
+    }
+
+    /**
+     * Returns the number of pairs in the stash.
+     *
+     * @return the stash size.
+     */
+    public int getStashSize() {
+        return stashSize;
+    }
+}
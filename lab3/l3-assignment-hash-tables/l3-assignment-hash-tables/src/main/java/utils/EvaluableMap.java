@@ -44,4 +44,68 @@ public interface EvaluableMap<K, V> extends Map<K, V> {
      * @return the number of elements occupied by the hash table array.
      */
     int getNumberOfOccupied();
+
+    /**
+     * Returns the longest probe sequence needed to place an entry (open addressing only).
+     *
+     * @return Maximum probe distance.
+     */
+    default int getMaxProbeDistance() {
+        return -1;
+    }
+
+    /**
+     * Returns the progress of an incremental rehash in percent. A map rehashing all at once
+     * never has a rehash in progress.
+     *
+     * @return Rehash progress, 100 when no rehash is in progress.
+     */
+    default int getRehashProgress() {
+        return 100;
+    }
+
+    /**
+     * Returns the average number of key.equals() calls per lookup.
+     *
+     * @return equals() calls per lookup.
+     */
+    default double getEqualsCallsPerLookup() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of lookups of a cache that found the key.
+     *
+     * @return Number of cache hits.
+     */
+    default long getHitsCounter() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of lookups of a cache that did not find the key.
+     *
+     * @return Number of cache misses.
+     */
+    default long getMissesCounter() {
+        return -1;
+    }
+
+    /**
+     * Returns the number of pairs a cache removed to stay within its capacity.
+     *
+     * @return Number of evictions.
+     */
+    default long getEvictionsCounter() {
+        return -1;
+    }
+
+    /**
+     * Returns the snapshot of the collision parameters of the hash table.
+     *
+     * @return Metrics snapshot.
+     */
+    default MapMetrics getMetrics() {
+        return MapMetrics.of(this);
+    }
 }
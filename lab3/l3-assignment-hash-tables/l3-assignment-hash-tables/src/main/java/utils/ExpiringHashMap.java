@@ -0,0 +1,539 @@
+package utils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * The hash table with separate chaining whose pairs expire after a time to live, given for the map
+ * or for a single put(). An expired pair is removed by get() or contains() that finds it, and by the
+ * reaper: expireEntries(), called by put() and, if startReaper() was called, by a background thread.
+ * <p>
+ * The expiry times are kept in a hierarchical timing wheel of LEVELS levels with BUCKETS buckets each.
+ * A bucket of level 0 holds the pairs expiring within one tick (2^TICK_SHIFT ns, about a millisecond),
+ * and a bucket of each next level covers BUCKETS buckets of the previous level. A pair is put into the
+ * lowest level whose buckets reach its expiry time. When the time passes a bucket, its pairs expire or,
+ * if the bucket covers a longer span, move to the lower levels. So the reaper visits the buckets passed
+ * since the last call and the pairs in them, instead of the whole table, and a pair moves at most LEVELS
+ * times before it expires. The reaper removes a pair up to a tick after its expiry time; get() checks
+ * the exact time.
+ * <p>
+ * size(), containsValue() and the iterators count the expired pairs, which are not yet removed.
+ * The methods are synchronized on the map, because the reaper thread removes pairs concurrently;
+ * while the reaper runs, the map has to be iterated in a block synchronized on it.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class ExpiringHashMap<K, V> extends HashMap<K, V> {
+
+    static final int TICK_SHIFT = 20;
+    static final int LEVEL_SHIFT = 6;
+    static final int BUCKETS = 1 << LEVEL_SHIFT;
+    static final int LEVELS = 5;
+    // Expiry times are limited, so that they do not overflow
+    private static final long MAX_TIME_TO_LIVE = Long.MAX_VALUE >> 2;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long timeToLive;
+    private final LongSupplier clock;
+    // Sentinels of the bucket lists: wheel[level][bucket]
+    private final ExpiringNode<K, V>[][] wheel;
+    // The time of the last expireEntries(), in nanoseconds of the clock
+    private long time;
+    // The expiry time of the pairs added or updated by the current put()
+    private long writeExpiresAt;
+    private ScheduledExecutorService reaper;
+    //--------------------------------------------------------------------------
+    //  Parameters of the expiration
+    //--------------------------------------------------------------------------
+    private long expirationsCounter = 0;
+    private long rateStartTime;
+    private long rateStartCounter = 0;
+    private double expirationsPerSecond = 0;
+
+    public ExpiringHashMap(long timeToLive, TimeUnit unit) {
+        this(timeToLive, unit, DEFAULT_HASH_TYPE);
+    }
+
+    public ExpiringHashMap(long timeToLive, TimeUnit unit, HashManager.HashType ht) {
+        this(timeToLive, unit, ht, System::nanoTime);
+    }
+
+    /**
+     * Creates the map reading the time from the given clock, e.g. a manual clock of a test.
+     *
+     * @param timeToLive time to live of the pairs
+     * @param unit       unit of timeToLive
+     * @param ht         hash function
+     * @param clock      current time in nanoseconds, as of System.nanoTime()
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiringHashMap(long timeToLive, TimeUnit unit, HashManager.HashType ht, LongSupplier clock) {
+        super(ht);
+        this.timeToLive = toNanos(timeToLive, unit);
+        this.clock = clock;
+        wheel = (ExpiringNode<K, V>[][]) new ExpiringNode<?, ?>[LEVELS][BUCKETS];
+        for (ExpiringNode<K, V>[] level : wheel) {
+            for (int i = 0; i < BUCKETS; i++) {
+                level[i] = new ExpiringNode<>();
+            }
+        }
+        time = clock.getAsLong();
+        rateStartTime = time;
+    }
+
+    private static long toNanos(long timeToLive, TimeUnit unit) {
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("Illegal time to live: " + timeToLive);
+        }
+        return Math.min(unit.toNanos(timeToLive), MAX_TIME_TO_LIVE);
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return super.isEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return super.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        for (ExpiringNode<K, V>[] level : wheel) {
+            for (ExpiringNode<K, V> sentinel : level) {
+                sentinel.before = sentinel;
+                sentinel.after = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Adds the new key-value pair, which expires after the time to live of the map.
+     *
+     * @param key
+     * @param value
+     * @return added value.
+     */
+    @Override
+    public synchronized V put(K key, V value) {
+        return put(key, value, timeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adds the new key-value pair, which expires after the given time to live. If the key exists,
+     * its value and expiry time are replaced.
+     *
+     * @param key
+     * @param value
+     * @param timeToLive time to live of the pair
+     * @param unit       unit of timeToLive
+     * @return added value.
+     */
+    public synchronized V put(K key, V value, long timeToLive, TimeUnit unit) {
+        long ttl = toNanos(timeToLive, unit);
+        expireEntries();
+        writeExpiresAt = time + ttl;
+        return super.put(key, value);
+    }
+
+    @Override
+    public synchronized void putAll(java.util.Map<? extends K, ? extends V> map) {
+        expireEntries();
+        writeExpiresAt = time + timeToLive;
+        super.putAll(map);
+    }
+
+    @Override
+    public synchronized void putAll(K[] keys, V[] values) {
+        expireEntries();
+        writeExpiresAt = time + timeToLive;
+        super.putAll(keys, values);
+    }
+
+    /**
+     * Returns the value associated with the key, removing the pair if it has expired.
+     *
+     * @param key
+     * @return the value associated with the key or null, if the pair is absent or has expired.
+     */
+    @Override
+    public synchronized V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in get(K key)");
+        }
+        ExpiringNode<K, V> node = (ExpiringNode<K, V>) getNode(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.expiresAt - clock.getAsLong() <= 0) {
+            expire(node);
+            return null;
+        }
+        return node.getValue();
+    }
+
+    /**
+     * Looks up the keys one by one by get(), so the expired pairs are removed.
+     *
+     * @param keys keys.
+     * @param out  array for the values, as long as keys.
+     */
+    @Override
+    public synchronized void getAll(K[] keys, V[] out) {
+        if (keys.length != out.length) {
+            throw new IllegalArgumentException("Different number of keys and values in getAll(K[] keys, V[] out)");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            out[i] = get(keys[i]);
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(K key) {
+        return super.contains(key);
+    }
+
+    /**
+     * Removes the pair from the hash table.
+     *
+     * @param key
+     * @return value associated with key or null, if the pair is absent or has expired.
+     */
+    @Override
+    public synchronized V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in remove(K key)");
+        }
+        ExpiringNode<K, V> node = (ExpiringNode<K, V>) getNode(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.expiresAt - clock.getAsLong() <= 0) {
+            expire(node);
+            return null;
+        }
+        return super.remove(key);
+    }
+
+    @Override
+    public synchronized boolean replace(K key, V oldValue, V newValue) {
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replace(K key, V oldValue, V newValue)");
+        }
+        // an expired pair is removed by get() and is not replaced
+        return get(key) != null && super.replace(key, oldValue, newValue);
+    }
+
+    /**
+     * Computes a new value for the key; an expired pair is removed first, so the function gets null.
+     * A new or replaced value expires after the time to live of the map, while a value left identical
+     * keeps its expiry time, as a read by get() does. So do computeIfAbsent(), which does not change
+     * a present pair, computeIfPresent() and merge().
+     *
+     * @param key
+     * @param remappingFunction function computing the new value
+     * @return the new value associated with the key, or null if none.
+     */
+    @Override
+    public synchronized V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        ExpiringNode<K, V> node = prepareCompute(key);
+        long expiresAt = node == null ? 0 : node.expiresAt;
+        V oldValue = node == null ? null : node.getValue();
+        V newValue = super.compute(key, remappingFunction);
+        keepExpiryIfUnchanged(node, oldValue, newValue, expiresAt);
+        return newValue;
+    }
+
+    @Override
+    public synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        ExpiringNode<K, V> node = prepareCompute(key);
+        if (node != null && mappingFunction != null) {
+            return node.getValue();
+        }
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public synchronized V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        ExpiringNode<K, V> node = prepareCompute(key);
+        long expiresAt = node == null ? 0 : node.expiresAt;
+        V oldValue = node == null ? null : node.getValue();
+        V newValue = super.computeIfPresent(key, remappingFunction);
+        keepExpiryIfUnchanged(node, oldValue, newValue, expiresAt);
+        return newValue;
+    }
+
+    @Override
+    public synchronized V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        ExpiringNode<K, V> node = prepareCompute(key);
+        long expiresAt = node == null ? 0 : node.expiresAt;
+        V oldValue = node == null ? null : node.getValue();
+        V newValue = super.merge(key, value, remappingFunction);
+        keepExpiryIfUnchanged(node, oldValue, newValue, expiresAt);
+        return newValue;
+    }
+
+    /**
+     * Expires the pairs as put() does, removes the pair of the key if it has expired,
+     * and sets the expiry time of the value to be computed.
+     *
+     * @param key
+     * @return the node of the key, null if the key is absent or its pair has expired.
+     */
+    private ExpiringNode<K, V> prepareCompute(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null");
+        }
+        expireEntries();
+        ExpiringNode<K, V> node = (ExpiringNode<K, V>) getNode(key);
+        if (node != null && node.expiresAt - clock.getAsLong() <= 0) {
+            expire(node);
+            node = null;
+        }
+        writeExpiresAt = time + timeToLive;
+        return node;
+    }
+
+    /**
+     * Restores the expiry time of the node, if the computation left its value identical,
+     * so no value was written.
+     *
+     * @param node      node of the key before the computation, null if none
+     * @param oldValue  value of the node before the computation
+     * @param newValue  computed value
+     * @param expiresAt expiry time of the node before the computation
+     */
+    private void keepExpiryIfUnchanged(ExpiringNode<K, V> node, V oldValue, V newValue, long expiresAt) {
+        if (node != null && newValue == oldValue && node.expiresAt != expiresAt) {
+            unschedule(node);
+            node.expiresAt = expiresAt;
+            schedule(node);
+        }
+    }
+
+    @Override
+    public synchronized boolean containsValue(Object value) {
+        return super.containsValue(value);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return super.toString();
+    }
+
+    /**
+     * Removes the pairs that have expired since the last call. The buckets of the timing wheel passed
+     * since then are visited: at most BUCKETS per level, however long ago the last call was.
+     */
+    public synchronized void expireEntries() {
+        long previousTime = time;
+        time = clock.getAsLong();
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = TICK_SHIFT + level * LEVEL_SHIFT;
+            long previousTicks = previousTime >> shift;
+            long ticks = time >> shift;
+            if (ticks - previousTicks <= 0) {
+                break;
+            }
+            // the bucket of previousTicks may hold pairs put after the last call into the current tick
+            long steps = Math.min(ticks - previousTicks + 1, BUCKETS);
+            for (long i = 0; i < steps; i++) {
+                expireBucket(wheel[level][(int) ((previousTicks + i) & (BUCKETS - 1))]);
+            }
+        }
+        if (time - rateStartTime >= NANOS_PER_SECOND) {
+            expirationsPerSecond = (double) (expirationsCounter - rateStartCounter) * NANOS_PER_SECOND
+                    / (time - rateStartTime);
+            rateStartTime = time;
+            rateStartCounter = expirationsCounter;
+        }
+    }
+
+    /**
+     * Removes the expired pairs of the bucket, and moves the others to the buckets of their expiry time.
+     */
+    private void expireBucket(ExpiringNode<K, V> sentinel) {
+        ExpiringNode<K, V> node = sentinel.after;
+        sentinel.before = sentinel;
+        sentinel.after = sentinel;
+        while (node != sentinel) {
+            ExpiringNode<K, V> next = node.after;
+            node.before = null;
+            node.after = null;
+            if (node.expiresAt - time <= 0) {
+                expire(node);
+            } else {
+                schedule(node);
+            }
+            node = next;
+        }
+    }
+
+    private void expire(ExpiringNode<K, V> node) {
+        super.remove(node.key);
+        expirationsCounter++;
+    }
+
+    /**
+     * Links the node into the bucket of its expiry time, at the lowest level that reaches it.
+     */
+    private void schedule(ExpiringNode<K, V> node) {
+        long duration = node.expiresAt - time;
+        int level = 0;
+        while (level < LEVELS - 1 && duration >= 1L << (TICK_SHIFT + (level + 1) * LEVEL_SHIFT)) {
+            level++;
+        }
+        int bucket = (int) ((node.expiresAt >> (TICK_SHIFT + level * LEVEL_SHIFT)) & (BUCKETS - 1));
+        ExpiringNode<K, V> sentinel = wheel[level][bucket];
+        node.after = sentinel;
+        node.before = sentinel.before;
+        sentinel.before.after = node;
+        sentinel.before = node;
+    }
+
+    private static <K, V> void unschedule(ExpiringNode<K, V> node) {
+        // a node of a bucket being expired is unlinked already
+        if (node.before != null) {
+            node.before.after = node.after;
+            node.after.before = node.before;
+            node.before = null;
+            node.after = null;
+        }
+    }
+
+    @Override
+    protected Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+        return new ExpiringNode<>(hash, key, value, next);
+    }
+
+    @Override
+    protected boolean isTreeifyEnabled() {
+        return false;
+    }
+
+    @Override
+    protected void afterNodeInsertion(Node<K, V> node) {
+        ExpiringNode<K, V> n = (ExpiringNode<K, V>) node;
+        n.expiresAt = writeExpiresAt;
+        schedule(n);
+    }
+
+    /**
+     * Called by put() replacing the value and by the computations, as get() does not call it.
+     * A computation leaving the value identical restores the expiry time afterwards.
+     */
+    @Override
+    protected void afterNodeAccess(Node<K, V> node) {
+        ExpiringNode<K, V> n = (ExpiringNode<K, V>) node;
+        unschedule(n);
+        n.expiresAt = writeExpiresAt;
+        schedule(n);
+    }
+
+    @Override
+    protected void afterNodeRemoval(Node<K, V> node) {
+        unschedule((ExpiringNode<K, V>) node);
+    }
+
+    /**
+     * Starts a daemon thread calling expireEntries() with the given period. The thread keeps the map
+     * reachable, so it has to be stopped by stopReaper() when the map is no longer used.
+     *
+     * @param period period of the reaper
+     * @param unit   unit of period
+     */
+    public synchronized void startReaper(long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Illegal reaper period: " + period);
+        }
+        if (reaper != null) {
+            throw new IllegalStateException("Reaper is started already");
+        }
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ExpiringHashMap reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleAtFixedRate(this::expireEntries, period, period, unit);
+    }
+
+    /**
+     * Stops the reaper thread, if it was started.
+     */
+    public synchronized void stopReaper() {
+        if (reaper != null) {
+            reaper.shutdownNow();
+            reaper = null;
+        }
+    }
+
+    /**
+     * Returns the number of pairs removed because they expired.
+     *
+     * @return number of expirations.
+     */
+    public synchronized long getExpirationsCounter() {
+        return expirationsCounter;
+    }
+
+    /**
+     * Returns the rate of expirations over the last interval of at least a second between the calls
+     * of expireEntries().
+     *
+     * @return expirations per second.
+     */
+    public synchronized double getExpirationsPerSecond() {
+        return expirationsPerSecond;
+    }
+
+    @Override
+    public synchronized int getRehashesCounter() {
+        return super.getRehashesCounter();
+    }
+
+    @Override
+    public synchronized int getTableCapacity() {
+        return super.getTableCapacity();
+    }
+
+    @Override
+    public synchronized int getLastUpdated() {
+        return super.getLastUpdated();
+    }
+
+    @Override
+    public synchronized int getNumberOfOccupied() {
+        return super.getNumberOfOccupied();
+    }
+
+    @Override
+    public synchronized int getMaxChainSize() {
+        return super.getMaxChainSize();
+    }
+
+    private static final class ExpiringNode<K, V> extends Node<K, V> {
+
+        // Expiry time in nanoseconds of the clock
+        private long expiresAt;
+        // Neighbors in the bucket of the timing wheel, null if the node is in no bucket
+        private ExpiringNode<K, V> before;
+        private ExpiringNode<K, V> after;
+
+        // Sentinel of a bucket
+        ExpiringNode() {
+            before = this;
+            after = this;
+        }
+
+        ExpiringNode(int hash, K key, V value, Node<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * The implementation of hash table based on open addressing with a flat layout.
+ * Keys and values are kept in two parallel arrays and the state of every place
+ * (empty, occupied or deleted) in a byte array, so a put of a new key allocates
+ * no entry object and a probe sequence reads the state array instead of dereferencing entries.
+ * The probing types are the same as in HashMapOa, except for ROBIN_HOOD.
+ *
+ * @param <K> key type of hash table
+ * @param <V> value type of hash table
+ */
+public class FlatHashMapOa<K, V> implements EvaluableMap<K, V> {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 8;
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    public static final HashManager.HashType DEFAULT_HASH_TYPE = HashManager.HashType.DIVISION;
+    public static final HashMapOa.OpenAddressingType DEFAULT_OPEN_ADDRESSING_TYPE = HashMapOa.OpenAddressingType.LINEAR;
+
+    // States of the places
+    private static final byte EMPTY = 0;
+    private static final byte OCCUPIED = 1;
+    private static final byte DELETED = 2;
+
+    // Keys of the hash table
+    protected Object[] keys;
+    // Values of the hash table
+    protected Object[] values;
+    // States of the places of the hash table
+    protected byte[] states;
+    // The amount of key-value pairs
+    protected int size = 0;
+    // Load factor
+    protected float loadFactor;
+    // Hash function
+    protected HashManager.HashType ht;
+    //--------------------------------------------------------------------------
+    //  Parameters of hash table
+    //--------------------------------------------------------------------------
+    // The amount of rehashes
+    protected int rehashesCounter = 0;
+    // The index of last updated element
+    protected int lastUpdated = 0;
+    // The number of occupied places in the hash table, DELETED places included
+    protected int numberOfOccupied = 0;
+    // The number of DELETED places
+    protected int deletedCounter = 0;
+    // The longest probe sequence an entry needed to be placed
+    protected int maxProbeDistance = 0;
+
+    private final HashMapOa.OpenAddressingType oaType;
+
+    public FlatHashMapOa() {
+        this(DEFAULT_HASH_TYPE);
+    }
+
+    public FlatHashMapOa(HashManager.HashType ht) {
+        this(DEFAULT_INITIAL_CAPACITY, ht);
+    }
+
+    public FlatHashMapOa(int initialCapacity, HashManager.HashType ht) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, ht, DEFAULT_OPEN_ADDRESSING_TYPE);
+    }
+
+    public FlatHashMapOa(int initialCapacity, float loadFactor, HashManager.HashType ht, HashMapOa.OpenAddressingType oaType) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if ((loadFactor <= 0.0) || (loadFactor > 1.0)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        if (oaType != HashMapOa.OpenAddressingType.LINEAR
+                && oaType != HashMapOa.OpenAddressingType.QUADRATIC
+                && oaType != HashMapOa.OpenAddressingType.DOUBLE_HASHING) {
+            throw new IllegalArgumentException("Open addressing type is not supported by the flat layout: " + oaType);
+        }
+
+        int length = HashManager.tableSizeFor(initialCapacity, ht);
+        this.keys = new Object[length];
+        this.values = new Object[length];
+        this.states = new byte[length];
+        this.loadFactor = loadFactor;
+        this.ht = ht;
+        this.oaType = oaType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        Arrays.fill(states, EMPTY);
+        size = 0;
+        lastUpdated = 0;
+        rehashesCounter = 0;
+        numberOfOccupied = 0;
+        deletedCounter = 0;
+        maxProbeDistance = 0;
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in contains(K key)");
+        }
+
+        return findKey(key) != -1;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key or value is null in put(K key, V value)");
+        }
+        int position = findPosition(key, true);
+        if (position == -1) {
+            rehash();
+            return put(key, value);
+        }
+
+        if (states[position] == OCCUPIED) {
+            values[position] = value;
+            lastUpdated = position;
+            return value;
+        }
+
+        if (states[position] == EMPTY) {
+            numberOfOccupied++;
+        } else {
+            deletedCounter--;
+        }
+        keys[position] = key;
+        values[position] = value;
+        states[position] = OCCUPIED;
+        size++;
+        if (numberOfOccupied > keys.length * loadFactor) {
+            rehash();
+        } else {
+            lastUpdated = position;
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in get(K key)");
+        }
+
+        int position = findKey(key);
+        return position == -1 ? null : (V) values[position];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in remove(K key)");
+        }
+
+        int position = findKey(key);
+        if (position == -1) {
+            return null;
+        }
+
+        V value = (V) values[position];
+        keys[position] = null;
+        values[position] = null;
+        states[position] = DELETED;
+        deletedCounter++;
+        size--;
+        return value;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in replace(K key, V oldValue, V newValue)");
+        }
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replace(K key, V oldValue, V newValue)");
+        }
+
+        int position = findKey(key);
+        if (position != -1 && values[position].equals(oldValue)) {
+            values[position] = newValue;
+            lastUpdated = position;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == OCCUPIED && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == OCCUPIED) {
+                result.append(keys[i]).append('=').append(values[i]).append(System.lineSeparator());
+            }
+        }
+        return result.toString();
+    }
+
+    private int findKey(K key) {
+        int position = findPosition(key, false);
+        return position != -1 && states[position] == OCCUPIED ? position : -1;
+    }
+
+    /**
+     * Walks the probe sequence of the key. The position of the key is returned if it is found.
+     * Otherwise the first free position is returned: when forInsertion is true, an earlier DELETED
+     * place is preferred.
+     *
+     * @param key
+     * @param forInsertion
+     * @return the position of the key, a free position, or -1 if the probe sequence is exhausted
+     */
+    private int findPosition(Object key, boolean forInsertion) {
+        int hashCode = key.hashCode();
+        int length = states.length;
+        int step = stepOf(hashCode);
+        int position = HashManager.hash(hashCode, length, ht);
+        int firstDeleted = -1;
+        int firstDeletedProbe = 0;
+        for (int i = 0; i < length; i++) {
+            byte state = states[position];
+            if (state == EMPTY) {
+                if (!forInsertion) {
+                    return position;
+                }
+                if (firstDeleted == -1) {
+                    maxProbeDistance = Math.max(maxProbeDistance, i);
+                    return position;
+                }
+                break;
+            }
+            if (state == DELETED) {
+                if (firstDeleted == -1) {
+                    firstDeleted = position;
+                    firstDeletedProbe = i;
+                }
+            } else if (keys[position].equals(key)) {
+                return position;
+            }
+            position = nextPosition(position, i, step, length);
+        }
+
+        if (forInsertion && firstDeleted != -1) {
+            maxProbeDistance = Math.max(maxProbeDistance, firstDeletedProbe);
+            return firstDeleted;
+        }
+        return -1;
+    }
+
+    private int stepOf(int hashCode) {
+        return oaType == HashMapOa.OpenAddressingType.DOUBLE_HASHING ? 7 - Math.abs(hashCode % 7) : 1;
+    }
+
+    /**
+     * Returns the next position of the probe sequence, given the current position and the probe number i.
+     * Quadratic probing visits index + 1, index + 4, index + 9, ..., as consecutive squares differ by 2i + 1.
+     */
+    private int nextPosition(int position, int i, int step, int length) {
+        int next = position + (oaType == HashMapOa.OpenAddressingType.QUADRATIC ? 2 * i + 1 : step);
+        return next >= length ? next % length : next;
+    }
+
+    /**
+     * Rebuilds the table once its occupied places, DELETED places included, exceed the load factor.
+     * If at least HashMapOa.COMPACTION_THRESHOLD of the places are DELETED, the capacity is kept,
+     * otherwise it is doubled.
+     */
+    private void rehash() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        byte[] oldStates = states;
+        int length = deletedCounter >= oldStates.length * HashMapOa.COMPACTION_THRESHOLD
+                ? oldStates.length : oldStates.length * 2;
+        while (!rehashInto(oldKeys, oldValues, oldStates, length)) {
+            length *= 2;
+        }
+        rehashesCounter++;
+    }
+
+    /**
+     * Places all occupied entries of the old arrays into new arrays of the given length.
+     * The keys are known to be distinct, so only empty places are probed for and equals() is not called.
+     *
+     * @return false if the probe sequence of some key has no empty place
+     */
+    private boolean rehashInto(Object[] oldKeys, Object[] oldValues, byte[] oldStates, int length) {
+        keys = new Object[length];
+        values = new Object[length];
+        states = new byte[length];
+        numberOfOccupied = 0;
+        deletedCounter = 0;
+        maxProbeDistance = 0;
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] == OCCUPIED) {
+                int hashCode = oldKeys[i].hashCode();
+                int step = stepOf(hashCode);
+                int position = HashManager.hash(hashCode, length, ht);
+                int probe = 0;
+                while (states[position] != EMPTY) {
+                    if (probe == length - 1) {
+                        return false;
+                    }
+                    position = nextPosition(position, probe++, step, length);
+                }
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+                states[position] = OCCUPIED;
+                numberOfOccupied++;
+                maxProbeDistance = Math.max(maxProbeDistance, probe);
+                lastUpdated = position;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of rehashes occurred in the hash table.
+     *
+     * @return number of rehashes.
+     */
+    @Override
+    public int getRehashesCounter() {
+        return rehashesCounter;
+    }
+
+    /**
+     * Returns the capacity of hash table.
+     *
+     * @return capacity of hash table.
+     */
+    @Override
+    public int getTableCapacity() {
+        return states.length;
+    }
+
+    /**
+     * Returns the index of last update element of the hash table.
+     *
+     * @return the index of last update element of the hash table.
+     */
+    @Override
+    public int getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Returns the number of occupied places in the hash table.
+     *
+     * @return the number of occupied places in the hash table.
+     */
+    @Override
+    public int getNumberOfOccupied() {
+        return numberOfOccupied;
+    }
+
+    /**
+     * Returns the longest probe sequence needed to place an entry.
+     *
+     * @return the maximum probe distance.
+     */
+    @Override
+    public int getMaxProbeDistance() {
+        return maxProbeDistance;
+    }
+}
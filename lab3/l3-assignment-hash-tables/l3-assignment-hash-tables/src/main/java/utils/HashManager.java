@@ -2,20 +2,28 @@ package utils;
 
 public class HashManager {
 
+    // 2^32 / golden ratio, the multiplier of Fibonacci hashing
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    private static final double MULTIPLICATION_CONSTANT = (Math.sqrt(5) - 1) / 2;
+
     public enum HashType {
         DIVISION,
         MULTIPLICATION,
         JCF7, //Java Collections Framework 7
-        JCF  //Java Collections Framework 8/11/17
+        JCF,  //Java Collections Framework 8/11/17
+        FIBONACCI, //Multiplicative hashing with integer arithmetic, power of two tables only
+        FASTRANGE  //Fibonacci spreading with Lemire's multiply-shift reduction, any table length
     }
 
     public static int hash(int hashcode, int tableLength, HashType hashType) {
         switch (hashType) {
             case DIVISION:
-                return Math.abs(hashcode) % tableLength;
+                // abs of the remainder, so that Integer.MIN_VALUE is not a negative index
+                return Math.abs(hashcode % tableLength);
             case MULTIPLICATION:
-                double k = (Math.sqrt(5) - 1) / 2;
-                return (int) (((k * Math.abs(hashcode)) % 1) * tableLength);
+                // the fractional part taken by subtraction, which is exact and much cheaper than % 1
+                double product = MULTIPLICATION_CONSTANT * Math.abs((double) hashcode);
+                return (int) ((product - (long) product) * tableLength);
             case JCF7:
                 hashcode ^= (hashcode >>> 20) ^ (hashcode >>> 12);
                 hashcode = hashcode ^ (hashcode >>> 7) ^ (hashcode >>> 4);
@@ -23,8 +31,55 @@ public class HashManager {
             case JCF:
                 hashcode = hashcode ^ (hashcode >>> 16);
                 return hashcode & (tableLength - 1);
+            case FIBONACCI:
+                // the top log2(tableLength) bits of the product; a long shift, as 32 is a valid shift for a table of 1
+                return (int) (((hashcode * GOLDEN_RATIO) & 0xFFFFFFFFL) >>> (Integer.numberOfLeadingZeros(tableLength) + 1));
+            case FASTRANGE:
+                // maps the spread hash code from [0, 2^32) to [0, tableLength) without a division
+                return (int) (((hashcode * GOLDEN_RATIO) & 0xFFFFFFFFL) * tableLength >>> 32);
             default:
                 throw new IllegalArgumentException("HashType is unknown");
         }
     }
+
+    /**
+     * Spreads the hash code by Fibonacci multiplication, whose high bits are folded into the low ones,
+     * so close hash codes, as of sequential ids, get distant indexes by any hash function. The fold shift
+     * is not 16, as the fold of JCF would cancel it and leave the low bits of the product, which are zero
+     * for hash codes that are multiples of a power of two.
+     *
+     * @param hashcode hash code
+     * @return spread hash code
+     */
+    public static int spread(int hashcode) {
+        int spread = hashcode * GOLDEN_RATIO;
+        return spread ^ (spread >>> 15);
+    }
+
+    /**
+     * Checks if the hash function takes the index from a bit mask or shift, so it works only
+     * with tables whose length is a power of two.
+     *
+     * @param hashType hash function
+     * @return true if the table length must be a power of two
+     */
+    public static boolean requiresPowerOfTwo(HashType hashType) {
+        return hashType == HashType.JCF7 || hashType == HashType.JCF || hashType == HashType.FIBONACCI;
+    }
+
+    /**
+     * Returns the table length to be used with the hash function: the capacity rounded up
+     * to a power of two if the hash function requires it, otherwise the capacity itself.
+     *
+     * @param capacity requested capacity
+     * @param hashType hash function
+     * @return table length
+     */
+    public static int tableSizeFor(int capacity, HashType hashType) {
+        if (!requiresPowerOfTwo(hashType) || capacity <= 1) {
+            return capacity;
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        return size < 0 ? 1 << 30 : size;
+    }
 }
@@ -1,22 +1,48 @@
 package utils;
 
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * The implementation of hash table based on chaining.
  * If the key is an object, e.g. class Car object,
  * do not forget to override methods equals(Object o) and hashCode().
+ * A chain longer than TREEIFY_THRESHOLD is converted to an AVL tree bin ordered by
+ * hash codes (and by compareTo() for Comparable keys), so the lookup in it takes O(log n).
  *
  * @param <K> key type of hash table
  * @param <V> value type of hash table
  * @author darius.matulis@ktu.lt
  * @task review and comprehend all the methods presented.
  */
-public class HashMap<K, V> implements EvaluableMap<K, V> {
+public class HashMap<K, V> implements EvaluableMap<K, V>, IterableMap<K, V> {
+
+    public enum RehashType {
+
+        FULL,        // all chains are moved to the new table at once
+        INCREMENTAL  // old and new tables coexist, every operation moves a few chains
+    }
 
     public static final int DEFAULT_INITIAL_CAPACITY = 8;
     public static final float DEFAULT_LOAD_FACTOR = 0.75f;
     public static final HashManager.HashType DEFAULT_HASH_TYPE = HashManager.HashType.DIVISION;
+    public static final RehashType DEFAULT_REHASH_TYPE = RehashType.FULL;
+    // The table is never shrunk by remove() by default
+    public static final float DEFAULT_SHRINK_LOAD_FACTOR = 0.0f;
+    // The number of chains moved from the old table by each operation during incremental rehash
+    public static final int MIGRATION_STEP = 4;
+    // A chain of this length is converted to a tree bin
+    public static final int TREEIFY_THRESHOLD = 8;
+    // A tree bin of this size is converted back to a chain
+    public static final int UNTREEIFY_THRESHOLD = 6;
+    // The number of keys getAll() resolves together
+    public static final int GET_ALL_GROUP = 16;
 
     // hash table
     protected Node<K, V>[] table;
@@ -24,8 +50,18 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
     protected int size = 0;
     // load factor
     protected float loadFactor;
+    // load below which remove() halves the table, 0 if the table is not shrunk
+    protected final float shrinkLoadFactor;
+    // remove() does not shrink the table below its initial length
+    protected final int initialLength;
     // hash function
     protected HashManager.HashType ht;
+    // rehashing strategy
+    protected final RehashType rehashType;
+    // table being emptied during incremental rehash, null when no rehash is in progress
+    protected Node<K, V>[] oldTable;
+    // index of the next chain of the old table to be moved
+    protected int migrationIndex = 0;
     //--------------------------------------------------------------------------
     //  Parameters of a hash table
     //--------------------------------------------------------------------------
@@ -37,8 +73,16 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
     protected int lastUpdatedChain = 0;
     // The amount of chains
     protected int chainsCounter = 0;
+    // The number of lookups and of key.equals() calls made by them
+    protected long lookupsCounter = 0;
+    protected long equalsCounter = 0;
+    // Durations of the last and of all the resizes, in nanoseconds
+    protected long lastResizeNanos = 0;
+    protected long totalResizeNanos = 0;
+    // Reference counts of the values, null if containsValue() scans the table
+    private final ValueIndex valueIndex;
 
-    // 4 overloaded constructors are created in the class
+    // 5 overloaded constructors are created in the class
     public HashMap() {
         this(DEFAULT_HASH_TYPE);
     }
@@ -56,6 +100,43 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
     }
 
     public HashMap(int initialCapacity, float loadFactor, HashManager.HashType ht) {
+        this(initialCapacity, loadFactor, ht, DEFAULT_REHASH_TYPE);
+    }
+
+    public HashMap(int initialCapacity, float loadFactor, HashManager.HashType ht, RehashType rehashType) {
+        this(initialCapacity, loadFactor, ht, rehashType, false);
+    }
+
+    /**
+     * Creates the hash table, which, if valueIndexed, keeps a reverse index of its values, so
+     * containsValue() takes a lookup instead of a scan of the table. The index takes memory and time
+     * of every put() and remove(), and the values must not change their equals() and hashCode()
+     * while they are in the table.
+     *
+     * @param initialCapacity
+     * @param loadFactor
+     * @param ht
+     * @param rehashType
+     * @param valueIndexed true if the reverse index of the values is kept
+     */
+    public HashMap(int initialCapacity, float loadFactor, HashManager.HashType ht, RehashType rehashType, boolean valueIndexed) {
+        this(initialCapacity, loadFactor, ht, rehashType, valueIndexed, DEFAULT_SHRINK_LOAD_FACTOR);
+    }
+
+    /**
+     * Creates the hash table, which remove() halves once its load drops below shrinkLoadFactor, but not
+     * below its initial capacity. The shrink load factor may be at most a quarter of the load factor,
+     * so a halved table is at most half loaded and is not enlarged again by the next put().
+     *
+     * @param initialCapacity
+     * @param loadFactor
+     * @param ht
+     * @param rehashType
+     * @param valueIndexed     true if the reverse index of the values is kept
+     * @param shrinkLoadFactor load below which the table is halved, 0 if it is not shrunk
+     */
+    public HashMap(int initialCapacity, float loadFactor, HashManager.HashType ht, RehashType rehashType,
+                   boolean valueIndexed, float shrinkLoadFactor) {
         if (initialCapacity <= 0) {
             throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
         }
@@ -64,9 +145,17 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
             throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
         }
 
-        this.table = new Node[initialCapacity];
+        if (shrinkLoadFactor < 0.0 || shrinkLoadFactor > loadFactor / 4) {
+            throw new IllegalArgumentException("Illegal shrink load factor: " + shrinkLoadFactor);
+        }
+
+        this.table = newTable(HashManager.tableSizeFor(initialCapacity, ht));
+        this.initialLength = table.length;
+        this.shrinkLoadFactor = shrinkLoadFactor;
         this.loadFactor = loadFactor;
         this.ht = ht;
+        this.rehashType = rehashType;
+        this.valueIndex = valueIndexed ? new ValueIndex() : null;
     }
 
     /**
@@ -93,11 +182,20 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
     @Override
     public void clear() {
         Arrays.fill(table, null);
+        oldTable = null;
+        migrationIndex = 0;
         size = 0;
         lastUpdatedChain = 0;
         maxChainSize = 0;
         rehashesCounter = 0;
         chainsCounter = 0;
+        lookupsCounter = 0;
+        equalsCounter = 0;
+        lastResizeNanos = 0;
+        totalResizeNanos = 0;
+        if (valueIndex != null) {
+            valueIndex.clear();
+        }
     }
 
     /**
@@ -127,27 +225,269 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
         if (key == null || value == null) {
             throw new IllegalArgumentException("Key or value is null in put(K key, V value)");
         }
-        int index = HashManager.hash(key.hashCode(), table.length, ht);
+        int hash = key.hashCode();
+        continueRehash(hash);
+
+        if (putValue(hash, key, value) && size > table.length * loadFactor) {
+            rehash();
+        }
+        return value;
+    }
+
+    /**
+     * Adds the pairs of the given map. The table is enlarged once for all the pairs,
+     * so no rehash occurs while they are added.
+     *
+     * @param map
+     */
+    @Override
+    public void putAll(java.util.Map<? extends K, ? extends V> map) {
+        ensureCapacity(size + map.size());
+        map.forEach((key, value) -> {
+            if (key == null || value == null) {
+                throw new IllegalArgumentException("Key or value is null in putAll(Map map)");
+            }
+            putValue(key.hashCode(), key, value);
+        });
+    }
+
+    /**
+     * Adds the pairs keys[i]-values[i]. The table is enlarged once for all the pairs,
+     * so no rehash occurs while they are added.
+     *
+     * @param keys
+     * @param values
+     */
+    @Override
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Different number of keys and values in putAll(K[] keys, V[] values)");
+        }
+        ensureCapacity(size + keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || values[i] == null) {
+                throw new IllegalArgumentException("Key or value is null in putAll(K[] keys, V[] values)");
+            }
+            putValue(keys[i].hashCode(), keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Enlarges the table, so that the expected number of pairs fits without exceeding the load factor.
+     * A pending incremental rehash is completed first. An empty table is just replaced, which is not
+     * counted as a rehash.
+     *
+     * @param expectedSize
+     */
+    protected void ensureCapacity(int expectedSize) {
+        if (oldTable != null) {
+            moveChains(oldTable.length);
+        }
+        int length = table.length;
+        while (length * loadFactor < expectedSize && length < (1 << 30)) {
+            length *= 2;
+        }
+        if (length == table.length) {
+            return;
+        }
+        if (size == 0) {
+            table = newTable(length);
+            chainsCounter = 0;
+            maxChainSize = 0;
+            lastUpdatedChain = 0;
+            return;
+        }
+        resizeTable(length);
+    }
+
+    /**
+     * Adds or updates the pair without checking the load of the table.
+     *
+     * @param hash hash code of the key
+     * @param key
+     * @param value
+     * @return true if a new pair was added
+     */
+    private boolean putValue(int hash, K key, V value) {
+        int index = HashManager.hash(hash, table.length, ht);
+        lastUpdatedChain = index;
         if (table[index] == null) {
             chainsCounter++;
         }
 
-        Node<K, V> node = getInChain(key, table[index]);
+        Node<K, V> node = findNode(hash, key, index);
+        if (node != null) {
+            if (valueIndex != null) {
+                valueIndex.replace(node.getValue(), value);
+            }
+            node.value = value;
+            afterNodeAccess(node);
+            return false;
+        }
+
+        insertNode(index, hash, key, value);
+        return true;
+    }
+
+    /**
+     * Adds the pair, whose key is absent, to the chain or tree bin of the given index.
+     *
+     * @param index index of the chain
+     * @param hash  hash code of the key
+     * @param key
+     * @param value
+     */
+    private void insertNode(int index, int hash, K key, V value) {
+        if (table[index] instanceof TreeNode) {
+            putInTree(index, hash, key, value);
+        } else {
+            table[index] = newNode(hash, key, value, table[index]);
+            afterNodeInsertion(table[index]);
+            if (isTreeifyEnabled() && isChainLongerThan(table[index], TREEIFY_THRESHOLD - 1)) {
+                treeify(index);
+            }
+        }
+        if (valueIndex != null) {
+            valueIndex.add(value);
+        }
+        size++;
+    }
+
+    /**
+     * Computes a new value for the key with a single lookup: the value of an existing pair is replaced
+     * in its node, and a new pair is added to the chain found by the lookup. Only the removal of a pair,
+     * when the new value is null, looks the key up again. So do computeIfAbsent(), computeIfPresent()
+     * and merge().
+     *
+     * @param key
+     * @param remappingFunction function computing the new value
+     * @return the new value associated with the key, or null if none.
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key or function is null in compute(K key, BiFunction remappingFunction)");
+        }
+        int hash = key.hashCode();
+        continueRehash(hash);
+
+        int index = HashManager.hash(hash, table.length, ht);
+        Node<K, V> node = findNode(hash, key, index);
+        return putComputed(index, hash, key, node, remappingFunction.apply(key, node == null ? null : node.getValue()));
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null) {
+            throw new IllegalArgumentException("Key or function is null in computeIfAbsent(K key, Function mappingFunction)");
+        }
+        int hash = key.hashCode();
+        continueRehash(hash);
+
+        int index = HashManager.hash(hash, table.length, ht);
+        Node<K, V> node = findNode(hash, key, index);
+        if (node != null) {
+            afterNodeAccess(node);
+            return node.getValue();
+        }
+        return putComputed(index, hash, key, null, mappingFunction.apply(key));
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key or function is null in computeIfPresent(K key, BiFunction remappingFunction)");
+        }
+        int hash = key.hashCode();
+        continueRehash(hash);
+
+        int index = HashManager.hash(hash, table.length, ht);
+        Node<K, V> node = findNode(hash, key, index);
         if (node == null) {
-            table[index] = new Node<>(key, value, table[index]);
-            size++;
+            return null;
+        }
+        return putComputed(index, hash, key, node, remappingFunction.apply(key, node.getValue()));
+    }
 
-            if (size > table.length * loadFactor) {
-                rehash();
-            } else {
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (key == null || value == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key, value or function is null in merge(K key, V value, BiFunction remappingFunction)");
+        }
+        int hash = key.hashCode();
+        continueRehash(hash);
+
+        int index = HashManager.hash(hash, table.length, ht);
+        Node<K, V> node = findNode(hash, key, index);
+        return putComputed(index, hash, key, node, node == null ? value : remappingFunction.apply(node.getValue(), value));
+    }
+
+    /**
+     * Stores the value computed for the key: replaces the value of its node, adds a new pair to the chain of
+     * the given index, if the key was not found, or removes the pair, if the value is null.
+     *
+     * @param index    index of the chain of the key
+     * @param hash     hash code of the key
+     * @param key
+     * @param node     node of the key, null if the key was not found
+     * @param newValue computed value
+     * @return the new value associated with the key, or null if none.
+     */
+    private V putComputed(int index, int hash, K key, Node<K, V> node, V newValue) {
+        if (node == null) {
+            if (newValue != null) {
                 lastUpdatedChain = index;
+                if (table[index] == null) {
+                    chainsCounter++;
+                }
+                insertNode(index, hash, key, newValue);
+                if (size > table.length * loadFactor) {
+                    rehash();
+                }
             }
+        } else if (newValue == null) {
+            remove(key);
         } else {
-            node.value = value;
-            lastUpdatedChain = index;
+            V oldValue = node.getValue();
+            if (newValue != oldValue) {
+                if (valueIndex != null) {
+                    valueIndex.replace(oldValue, newValue);
+                }
+                node.value = newValue;
+                lastUpdatedChain = index;
+            }
+            afterNodeAccess(node);
         }
+        return newValue;
+    }
 
-        return value;
+    /**
+     * Adds a node created outside of the map, e.g. a node whose value is decoded lazily,
+     * without checking the load of the table. If the key already exists, its value is replaced.
+     * The capacity has to be ensured by ensureCapacity(int) beforehand.
+     *
+     * @param node node with the hash code, key and value set
+     */
+    protected void addNode(Node<K, V> node) {
+        int index = HashManager.hash(node.hash, table.length, ht);
+        if (table[index] instanceof TreeNode || findNode(node.hash, node.key, index) != null) {
+            putValue(node.hash, node.key, node.getValue());
+            return;
+        }
+        if (table[index] == null) {
+            chainsCounter++;
+        }
+        node.next = table[index];
+        table[index] = node;
+        if (valueIndex != null) {
+            valueIndex.add(node.getValue());
+        }
+        afterNodeInsertion(node);
+        if (isTreeifyEnabled() && isChainLongerThan(node, TREEIFY_THRESHOLD - 1)) {
+            treeify(index);
+        }
+        lastUpdatedChain = index;
+        size++;
     }
 
     /**
@@ -161,10 +501,73 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Key is null in get(K key)");
         }
+        Node<K, V> node = getNode(key);
+        if (node == null) {
+            return null;
+        }
+        afterNodeAccess(node);
+        return node.getValue();
+    }
+
+    /**
+     * Looks up the keys in groups of GET_ALL_GROUP: the hash codes and chain indexes of the group are
+     * computed first, then the heads of its chains are read, and only then are the chains searched.
+     * The reads of one stage do not depend on each other, so the processor overlaps their cache misses
+     * instead of waiting for them one lookup after another. A pending incremental rehash is completed
+     * first. Values are read as by get(), including afterNodeAccess().
+     *
+     * @param keys keys.
+     * @param out  array for the values, as long as keys.
+     */
+    @Override
+    public void getAll(K[] keys, V[] out) {
+        if (keys.length != out.length) {
+            throw new IllegalArgumentException("Different number of keys and values in getAll(K[] keys, V[] out)");
+        }
+        if (oldTable != null) {
+            moveChains(oldTable.length);
+        }
+        int[] hashes = new int[GET_ALL_GROUP];
+        Node<K, V>[] heads = newTable(GET_ALL_GROUP);
+        for (int start = 0; start < keys.length; start += GET_ALL_GROUP) {
+            int count = Math.min(GET_ALL_GROUP, keys.length - start);
+            for (int i = 0; i < count; i++) {
+                if (keys[start + i] == null) {
+                    throw new IllegalArgumentException("Key is null in getAll(K[] keys, V[] out)");
+                }
+                hashes[i] = keys[start + i].hashCode();
+            }
+            for (int i = 0; i < count; i++) {
+                heads[i] = table[HashManager.hash(hashes[i], table.length, ht)];
+            }
+            for (int i = 0; i < count; i++) {
+                Node<K, V> head = heads[i];
+                lookupsCounter++;
+                Node<K, V> node = head instanceof TreeNode
+                        ? findInTree((TreeNode<K, V>) head, hashes[i], keys[start + i])
+                        : getInChain(hashes[i], keys[start + i], head);
+                if (node != null) {
+                    afterNodeAccess(node);
+                    out[start + i] = node.getValue();
+                } else {
+                    out[start + i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the node of the key without calling afterNodeAccess().
+     *
+     * @param key
+     * @return the node of the key or null, if the key is absent.
+     */
+    protected Node<K, V> getNode(K key) {
+        int hash = key.hashCode();
+        continueRehash(hash);
 
-        int index = HashManager.hash(key.hashCode(), table.length, ht);
-        Node<K, V> node = getInChain(key, table[index]);
-        return node == null ? null : node.value;
+        int index = HashManager.hash(hash, table.length, ht);
+        return findNode(hash, key, index);
     }
 
     /**
@@ -178,29 +581,59 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Key is null in remove(K key)");
         }
+        int hash = key.hashCode();
+        continueRehash(hash);
 
-        int index = HashManager.hash(key.hashCode(), table.length, ht);
+        int index = HashManager.hash(hash, table.length, ht);
         Node<K, V> current = table[index];
+        lookupsCounter++;
 
         // Case: empty slot
         if (current == null) {
             return null;
         }
 
+        // Case: tree bin
+        if (current instanceof TreeNode) {
+            TreeNode<K, V> treeNode = findInTree((TreeNode<K, V>) current, hash, key);
+            if (treeNode == null) {
+                return null;
+            }
+            removeFromTree(index, treeNode);
+            if (valueIndex != null) {
+                valueIndex.remove(treeNode.getValue());
+            }
+            size--;
+            afterNodeRemoval(treeNode);
+            shrinkIfSparse();
+            return treeNode.getValue();
+        }
+
         // Case: key is at head
-        if (current.key.equals(key)) {
-            V value = current.value;
+        if (current.hash == hash && keyEquals(current, key)) {
+            V value = current.getValue();
             table[index] = current.next;
+            if (valueIndex != null) {
+                valueIndex.remove(value);
+            }
             size--;
+            afterNodeRemoval(current);
+            shrinkIfSparse();
             return value;
         }
 
         // Case: key is somewhere in the chain
         while (current.next != null) {
-            if (current.next.key.equals(key)) {
-                V value = current.next.value;
-                current.next = current.next.next;
+            if (current.next.hash == hash && keyEquals(current.next, key)) {
+                Node<K, V> removed = current.next;
+                V value = removed.getValue();
+                current.next = removed.next;
+                if (valueIndex != null) {
+                    valueIndex.remove(value);
+                }
                 size--;
+                afterNodeRemoval(removed);
+                shrinkIfSparse();
                 return value;
             }
             current = current.next;
@@ -210,68 +643,665 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
         return null;
     }
 
+    /**
+     * Creates the node of a new pair. A subclass may create nodes with more fields.
+     *
+     * @param hash hash code of the key
+     * @param key
+     * @param value
+     * @param next the next node in the chain
+     * @return the new node
+     */
+    protected Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+        return new Node<>(hash, key, value, next);
+    }
+
+    /**
+     * Checks if long chains are converted to tree bins. Converting replaces the nodes of the chain,
+     * so a subclass keeping references to its nodes has to disable it.
+     *
+     * @return true if long chains are converted to tree bins
+     */
+    protected boolean isTreeifyEnabled() {
+        return true;
+    }
+
+    /**
+     * Called when get() finds the node or put() replaces its value.
+     *
+     * @param node
+     */
+    protected void afterNodeAccess(Node<K, V> node) {
+    }
+
+    /**
+     * Called when a new node is linked into the table.
+     *
+     * @param node
+     */
+    protected void afterNodeInsertion(Node<K, V> node) {
+    }
+
+    /**
+     * Called when the node is removed from the table.
+     *
+     * @param node
+     */
+    protected void afterNodeRemoval(Node<K, V> node) {
+    }
+
     /**
      * Reshuffling
      */
     private void rehash() {
-        HashMap<K, V> newMap = new HashMap<>(table.length * 2, loadFactor, ht);
-        for (int i = 0; i < table.length; i++) {
-            while (table[i] != null) {
-                newMap.put(table[i].key, table[i].value);
-                table[i] = table[i].next;
+        if (rehashType == RehashType.INCREMENTAL) {
+            startIncrementalRehash();
+            return;
+        }
+        doubleTable();
+    }
+
+    /**
+     * Moves all the chains to a table of double length at once.
+     */
+    private void doubleTable() {
+        long start = System.nanoTime();
+        Node<K, V>[] oldChains = table;
+        table = newTable(oldChains.length * 2);
+        chainsCounter = 0;
+        maxChainSize = 0;
+        for (int i = 0; i < oldChains.length; i++) {
+            if (oldChains[i] != null) {
+                splitChain(oldChains[i]);
+                oldChains[i] = null;
+            }
+        }
+        rehashesCounter++;
+        recordResize(start);
+    }
+
+    private void recordResize(long start) {
+        lastResizeNanos = System.nanoTime() - start;
+        totalResizeNanos += lastResizeNanos;
+    }
+
+    /**
+     * Halves the table, if its load has dropped below shrinkLoadFactor.
+     */
+    private void shrinkIfSparse() {
+        if (size < table.length * shrinkLoadFactor && table.length > initialLength && table.length % 2 == 0) {
+            resizeTable(table.length / 2);
+        }
+    }
+
+    /**
+     * Halves the table while the pairs fit into the half without exceeding the load factor,
+     * so the table takes no more memory than its pairs need.
+     *
+     * @return the number of places released.
+     */
+    public int trimToSize() {
+        int length = table.length;
+        while (length % 2 == 0 && size <= length / 2 * loadFactor) {
+            length /= 2;
+        }
+        int released = table.length - length;
+        if (released > 0) {
+            resizeTable(length);
+        }
+        return released;
+    }
+
+    /**
+     * Moves all the nodes to a table of the given length at once by their stored hash codes, without
+     * calling hashCode() or equals(). Unlike splitChain(), the length need not be double the old one:
+     * the table is shrunk, or enlarged by several doublings, in a single pass, counted as one rehash.
+     * Tree bins become plain lists and are treeified again if needed.
+     * A pending incremental rehash is completed first.
+     *
+     * @param length the new table length
+     */
+    private void resizeTable(int length) {
+        long start = System.nanoTime();
+        if (oldTable != null) {
+            moveChains(oldTable.length);
+        }
+        Node<K, V>[] oldChains = table;
+        table = newTable(length);
+        chainsCounter = 0;
+        maxChainSize = 0;
+        for (Node<K, V> node : oldChains) {
+            while (node != null) {
+                Node<K, V> next = node.next;
+                Node<K, V> n = node instanceof TreeNode ? new Node<>(node.hash, node.key, node.getValue(), null) : node;
+                int index = HashManager.hash(n.hash, length, ht);
+                if (table[index] == null) {
+                    chainsCounter++;
+                }
+                n.next = table[index];
+                table[index] = n;
+                lastUpdatedChain = index;
+                node = next;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            int chainSize = 0;
+            for (Node<K, V> n = table[i]; n != null; n = n.next) {
+                chainSize++;
+            }
+            if (chainSize >= TREEIFY_THRESHOLD && isTreeifyEnabled()) {
+                treeify(i);
+            }
+            maxChainSize = Math.max(maxChainSize, chainSize);
+        }
+        rehashesCounter++;
+        recordResize(start);
+    }
+
+    /**
+     * Moves the nodes of an old chain to the doubled table by their stored hash codes, without
+     * calling hashCode() or equals(). All the hash functions send the nodes of one old chain to at
+     * most two new chains (i and i + n, or 2i and 2i + 1), which are built as the lo and hi lists
+     * keeping the order of the nodes. Tree bins become plain lists and are treeified again if needed.
+     *
+     * @param node the first node of the old chain
+     */
+    private void splitChain(Node<K, V> node) {
+        Node<K, V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+        int loIndex = -1, hiIndex = -1, loSize = 0, hiSize = 0;
+        for (; node != null; node = node.next) {
+            Node<K, V> n = node instanceof TreeNode ? new Node<>(node.hash, node.key, node.getValue(), null) : node;
+            int index = HashManager.hash(n.hash, table.length, ht);
+            if (loIndex == -1 || index == loIndex) {
+                loIndex = index;
+                loTail = loHead == null ? (loHead = n) : (loTail.next = n);
+                loSize++;
+            } else {
+                hiIndex = index;
+                hiTail = hiHead == null ? (hiHead = n) : (hiTail.next = n);
+                hiSize++;
             }
         }
-        table = newMap.table;
-        maxChainSize = newMap.maxChainSize;
-        chainsCounter = newMap.chainsCounter;
-        lastUpdatedChain = newMap.lastUpdatedChain;
+        // the tail of a relinked chain still points to the next node of the old chain
+        loTail.next = null;
+        linkChain(loIndex, loHead, loSize);
+        if (hiHead != null) {
+            hiTail.next = null;
+            linkChain(hiIndex, hiHead, hiSize);
+        }
+    }
+
+    private void linkChain(int index, Node<K, V> head, int chainSize) {
+        table[index] = head;
+        chainsCounter++;
+        lastUpdatedChain = index;
+        if (chainSize >= TREEIFY_THRESHOLD && isTreeifyEnabled()) {
+            treeify(index);
+        }
+        maxChainSize = Math.max(maxChainSize, chainSize);
+    }
+
+    /**
+     * Starts an incremental rehash: the current table becomes the old table and
+     * its chains are moved to the new table by the subsequent operations.
+     */
+    private void startIncrementalRehash() {
+        long start = System.nanoTime();
+        if (oldTable != null) {
+            // the previous rehash has to be completed before the next one starts
+            moveChains(oldTable.length);
+        }
+        oldTable = table;
+        table = newTable(oldTable.length * 2);
+        migrationIndex = 0;
+        chainsCounter = 0;
+        maxChainSize = 0;
+        lastUpdatedChain = 0;
         rehashesCounter++;
+        moveChains(MIGRATION_STEP);
+        recordResize(start);
+    }
+
+    /**
+     * Moves the old chain of the key to the new table, so the key can be looked up in the new
+     * table only, and then moves the next MIGRATION_STEP chains of the old table.
+     *
+     * @param hash hash code of the key
+     */
+    private void continueRehash(int hash) {
+        if (oldTable == null) {
+            return;
+        }
+        moveChain(HashManager.hash(hash, oldTable.length, ht));
+        moveChains(MIGRATION_STEP);
+    }
+
+    /**
+     * Moves the given number of not yet moved chains of the old table to the new table.
+     *
+     * @param count
+     */
+    private void moveChains(int count) {
+        for (int i = 0; i < count && migrationIndex < oldTable.length; i++) {
+            moveChain(migrationIndex++);
+        }
+        if (migrationIndex == oldTable.length) {
+            oldTable = null;
+            migrationIndex = 0;
+        }
+    }
+
+    /**
+     * Relinks the nodes of a single old chain into the new table, as doubleTable() does: its nodes go to
+     * at most two new chains, which no other old chain is moved to, and a half still reaching
+     * TREEIFY_THRESHOLD is treeified again.
+     *
+     * @param index index of the chain in the old table
+     */
+    private void moveChain(int index) {
+        Node<K, V> node = oldTable[index];
+        oldTable[index] = null;
+        if (node != null) {
+            splitChain(node);
+        }
+    }
+
+    /**
+     * Searching in a single chain or tree bin
+     *
+     * @param hash hash code of the key
+     * @param key
+     * @param index
+     * @return key-value pair
+     */
+    private Node<K, V> findNode(int hash, K key, int index) {
+        lookupsCounter++;
+        if (table[index] instanceof TreeNode) {
+            return findInTree((TreeNode<K, V>) table[index], hash, key);
+        }
+        return getInChain(hash, key, table[index]);
+    }
+
+    private boolean keyEquals(Node<K, V> node, K key) {
+        equalsCounter++;
+        return node.key.equals(key);
+    }
+
+    private static <K, V> boolean isChainLongerThan(Node<K, V> node, int length) {
+        for (int i = 0; node != null; node = node.next) {
+            if (++i > length) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Searching on a single chain
+     * Searching on a single chain. equals() is called only for the nodes with the same hash code.
      *
+     * @param hash hash code of the key
      * @param key
      * @param node
      * @return key-value pair
      */
-    private Node<K, V> getInChain(K key, Node<K, V> node) {
+    private Node<K, V> getInChain(int hash, K key, Node<K, V> node) {
         if (key == null) {
             throw new IllegalArgumentException("Key is null in getInChain(K key, Node node)");
         }
         int chainSize = 0;
         for (Node<K, V> n = node; n != null; n = n.next) {
             chainSize++;
-            if ((n.key).equals(key)) {
-                return n;
+            if (n.hash == hash) {
+                equalsCounter++;
+                if (n.key.equals(key)) {
+                    return n;
+                }
             }
         }
         maxChainSize = Math.max(maxChainSize, chainSize + 1);
         return null;
     }
 
+    //--------------------------------------------------------------------------
+    //  Tree bins. The nodes of a bin form an AVL tree and are also linked
+    //  through next/prev, the root being the first node, so chain walks
+    //  (toString, containsValue, rehash) work for tree bins unchanged.
+    //--------------------------------------------------------------------------
+
+    /**
+     * Converts the chain into a tree bin.
+     *
+     * @param index index of the chain
+     */
+    private void treeify(int index) {
+        TreeNode<K, V> head = null;
+        TreeNode<K, V> root = null;
+        int binSize = 0;
+        for (Node<K, V> n = table[index]; n != null; n = n.next) {
+            TreeNode<K, V> x = new TreeNode<>(n.hash, n.key, n.getValue());
+            x.next = head;
+            if (head != null) {
+                head.prev = x;
+            }
+            head = x;
+            root = addRecursive(root, x);
+            binSize++;
+        }
+        root = moveRootToFront(head, root);
+        root.binSize = binSize;
+        table[index] = root;
+    }
+
+    /**
+     * Converts the tree bin back into a chain.
+     *
+     * @param index index of the tree bin
+     */
+    private void untreeify(int index) {
+        Node<K, V> head = null;
+        for (Node<K, V> n = table[index]; n != null; n = n.next) {
+            head = new Node<>(n.hash, n.key, n.getValue(), head);
+        }
+        table[index] = head;
+    }
+
+    private void putInTree(int index, int hash, K key, V value) {
+        TreeNode<K, V> root = (TreeNode<K, V>) table[index];
+        int binSize = root.binSize + 1;
+        TreeNode<K, V> x = new TreeNode<>(hash, key, value);
+        x.next = root;
+        root.prev = x;
+        root = moveRootToFront(x, addRecursive(root, x));
+        root.binSize = binSize;
+        table[index] = root;
+        maxChainSize = Math.max(maxChainSize, binSize);
+    }
+
+    private void removeFromTree(int index, TreeNode<K, V> x) {
+        TreeNode<K, V> root = (TreeNode<K, V>) table[index];
+        int binSize = root.binSize - 1;
+        TreeNode<K, V> head = root;
+        if (x.prev == null) {
+            head = (TreeNode<K, V>) x.next;
+        } else {
+            x.prev.next = x.next;
+        }
+        if (x.next != null) {
+            ((TreeNode<K, V>) x.next).prev = x.prev;
+        }
+        x.prev = null;
+        x.next = null;
+
+        root = removeRecursive(root, x);
+        if (root == null) {
+            table[index] = null;
+            return;
+        }
+        root = moveRootToFront(head, root);
+        root.binSize = binSize;
+        table[index] = root;
+        if (binSize <= UNTREEIFY_THRESHOLD) {
+            untreeify(index);
+        }
+    }
+
+    /**
+     * Unlinks the tree root and links it before the head of the bin.
+     *
+     * @param head the first node of the bin
+     * @param root the root of the tree
+     * @return the root, which is the first node of the bin now
+     */
+    private static <K, V> TreeNode<K, V> moveRootToFront(TreeNode<K, V> head, TreeNode<K, V> root) {
+        if (root != head) {
+            root.prev.next = root.next;
+            if (root.next != null) {
+                ((TreeNode<K, V>) root.next).prev = root.prev;
+            }
+            root.next = head;
+            head.prev = root;
+            root.prev = null;
+        }
+        return root;
+    }
+
+    /**
+     * Searching in a tree bin. Nodes are ordered by hash code; keys with equal hash codes
+     * are ordered by compareTo() if they are Comparable, otherwise both subtrees are searched.
+     *
+     * @param node
+     * @param hash
+     * @param key
+     * @return key-value pair
+     */
+    private TreeNode<K, V> findInTree(TreeNode<K, V> node, int hash, K key) {
+        while (node != null) {
+            if (hash < node.hash) {
+                node = node.left;
+            } else if (hash > node.hash) {
+                node = node.right;
+            } else {
+                equalsCounter++;
+                if (key.equals(node.key)) {
+                    return node;
+                }
+                int cmp = compareComparables(key, node.key);
+                if (cmp < 0) {
+                    node = node.left;
+                } else if (cmp > 0) {
+                    node = node.right;
+                } else {
+                    TreeNode<K, V> found = findInTree(node.right, hash, key);
+                    if (found != null) {
+                        return found;
+                    }
+                    node = node.left;
+                }
+            }
+        }
+        return null;
+    }
+
+    private TreeNode<K, V> addRecursive(TreeNode<K, V> node, TreeNode<K, V> x) {
+        if (node == null) {
+            x.left = null;
+            x.right = null;
+            x.height = 0;
+            return x;
+        }
+        if (compareTreeNodes(x, node) < 0) {
+            node.left = addRecursive(node.left, x);
+        } else {
+            node.right = addRecursive(node.right, x);
+        }
+        return balance(node);
+    }
+
+    private TreeNode<K, V> removeRecursive(TreeNode<K, V> node, TreeNode<K, V> x) {
+        if (node == null) {
+            return null;
+        }
+        if (node == x) {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Two children - the predecessor (max in left subtree) takes the place of the node
+            TreeNode<K, V> predecessor = node.left;
+            while (predecessor.right != null) {
+                predecessor = predecessor.right;
+            }
+            predecessor.left = removeMaxNode(node.left);
+            predecessor.right = node.right;
+            node.left = null;
+            node.right = null;
+            return balance(predecessor);
+        }
+
+        int cmp = compareTreeNodes(x, node);
+        if (cmp < 0 || (cmp == 0 && !isInTree(node.right, x))) {
+            node.left = removeRecursive(node.left, x);
+        } else {
+            node.right = removeRecursive(node.right, x);
+        }
+        return balance(node);
+    }
+
+    private TreeNode<K, V> removeMaxNode(TreeNode<K, V> node) {
+        if (node.right == null) {
+            return node.left;
+        }
+        node.right = removeMaxNode(node.right);
+        return balance(node);
+    }
+
+    private static <K, V> boolean isInTree(TreeNode<K, V> node, TreeNode<K, V> x) {
+        return node != null && (node == x || isInTree(node.left, x) || isInTree(node.right, x));
+    }
+
+    /**
+     * Total order of tree bin nodes: hash code, compareTo() for Comparable keys of the same class,
+     * class name, and identity hash code as the last resort.
+     */
+    private static <K, V> int compareTreeNodes(TreeNode<K, V> a, TreeNode<K, V> b) {
+        if (a.hash != b.hash) {
+            return a.hash < b.hash ? -1 : 1;
+        }
+        int cmp = compareComparables(a.key, b.key);
+        if (cmp == 0 && a.key.getClass() != b.key.getClass()) {
+            cmp = a.key.getClass().getName().compareTo(b.key.getClass().getName());
+        }
+        if (cmp == 0) {
+            cmp = Integer.compare(System.identityHashCode(a.key), System.identityHashCode(b.key));
+        }
+        return cmp;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareComparables(Object k1, Object k2) {
+        if (k1 instanceof Comparable && k1.getClass() == k2.getClass()) {
+            return Integer.signum(((Comparable) k1).compareTo(k2));
+        }
+        return 0;
+    }
+
+    private TreeNode<K, V> balance(TreeNode<K, V> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            return height(node.left.left) >= height(node.left.right) ? rightRotation(node) : doubleRightRotation(node);
+        }
+        if (balance < -1) {
+            return height(node.right.right) >= height(node.right.left) ? leftRotation(node) : doubleLeftRotation(node);
+        }
+        return node;
+    }
+
+    //           n2
+    //          /                n1
+    //         n1      ==>      /  \
+    //        /                n3  n2
+    //       n3
+
+    private TreeNode<K, V> rightRotation(TreeNode<K, V> n2) {
+        TreeNode<K, V> n1 = n2.left;
+        n2.left = n1.right;
+        n1.right = n2;
+        n2.height = Math.max(height(n2.left), height(n2.right)) + 1;
+        n1.height = Math.max(height(n1.left), height(n2)) + 1;
+        return n1;
+    }
+
+    private TreeNode<K, V> leftRotation(TreeNode<K, V> n1) {
+        TreeNode<K, V> n2 = n1.right;
+        n1.right = n2.left;
+        n2.left = n1;
+        n1.height = Math.max(height(n1.left), height(n1.right)) + 1;
+        n2.height = Math.max(height(n2.right), height(n1)) + 1;
+        return n2;
+    }
+
+    private TreeNode<K, V> doubleRightRotation(TreeNode<K, V> n3) {
+        n3.left = leftRotation(n3.left);
+        return rightRotation(n3);
+    }
+
+    private TreeNode<K, V> doubleLeftRotation(TreeNode<K, V> n1) {
+        n1.right = rightRotation(n1.right);
+        return leftRotation(n1);
+    }
+
+    private int height(TreeNode<K, V> n) {
+        return (n == null) ? -1 : n.height;
+    }
+
+    /**
+     * Returns the iterator of the key-value pairs, chain by chain. A pending incremental rehash
+     * is completed first, so all the pairs are in the table.
+     *
+     * @return iterator of the entries.
+     */
+    @Override
+    public Iterator<java.util.Map.Entry<K, V>> iterator() {
+        if (oldTable != null) {
+            moveChains(oldTable.length);
+        }
+        return new ChainSpliterator<>(table, 0, table.length, size);
+    }
+
+    /**
+     * Returns the spliterator of the key-value pairs, which splits the table into ranges of chains.
+     * A pending incremental rehash is completed first, so all the pairs are in the table.
+     *
+     * @return spliterator of the entries.
+     */
+    @Override
+    public Spliterator<java.util.Map.Entry<K, V>> spliterator() {
+        if (oldTable != null) {
+            moveChains(oldTable.length);
+        }
+        return new ChainSpliterator<>(table, 0, table.length, size);
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
-        for (Node<K, V> node : table) {
+        appendChains(result, table);
+        if (oldTable != null) {
+            appendChains(result, oldTable);
+        }
+        return result.toString();
+    }
+
+    private static <K, V> void appendChains(StringBuilder result, Node<K, V>[] chains) {
+        for (Node<K, V> node : chains) {
             if (node != null) {
                 for (Node<K, V> n = node; n != null; n = n.next) {
                     result.append(n).append(System.lineSeparator());
                 }
             }
         }
-        return result.toString();
     }
 
     public boolean replace(K key, V oldValue, V newValue) {
         if (key == null) {
             throw new IllegalArgumentException("Key is null in replace(K key, V oldValue, V newValue)");
         }
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replace(K key, V oldValue, V newValue)");
+        }
+        int hash = key.hashCode();
+        continueRehash(hash);
 
-        int index = HashManager.hash(key.hashCode(), table.length, ht);
-        Node<K, V> node = getInChain(key, table[index]);
+        int index = HashManager.hash(hash, table.length, ht);
+        Node<K, V> node = findNode(hash, key, index);
 
-        if (node != null && node.value.equals(oldValue)) {
+        if (node != null && node.getValue().equals(oldValue)) {
+            if (valueIndex != null) {
+                valueIndex.replace(node.getValue(), newValue);
+            }
             node.value = newValue;
             return true;
         }
@@ -280,10 +1310,17 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
     }
 
     public boolean containsValue(Object value) {
-        for (int i = 0; i < table.length; i++) {
-            Node<K, V> node = table[i];
+        if (valueIndex != null) {
+            return valueIndex.contains(value);
+        }
+        return chainsContainValue(table, value) || (oldTable != null && chainsContainValue(oldTable, value));
+    }
+
+    private static <K, V> boolean chainsContainValue(Node<K, V>[] chains, Object value) {
+        for (int i = 0; i < chains.length; i++) {
+            Node<K, V> node = chains[i];
             while (node != null) {
-                if (node.value.equals(value)) {
+                if (node.getValue().equals(value)) {
                     return true;
                 }
                 node = node.next;
@@ -342,8 +1379,155 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
         return chainsCounter;
     }
 
-    protected static class Node<K, V> {
+    /**
+     * Returns the percentage of the old table chains moved by the incremental rehash.
+     *
+     * @return rehash progress in percent, 100 when no rehash is in progress.
+     */
+    @Override
+    public int getRehashProgress() {
+        return oldTable == null ? 100 : (int) (100L * migrationIndex / oldTable.length);
+    }
+
+    /**
+     * Returns the average number of key.equals() calls per lookup.
+     *
+     * @return equals() calls per lookup.
+     */
+    @Override
+    public double getEqualsCallsPerLookup() {
+        return lookupsCounter == 0 ? 0 : (double) equalsCounter / lookupsCounter;
+    }
+
+    /**
+     * Returns the snapshot with the histogram of the chain lengths, counted by walking the chains.
+     * A pending incremental rehash is completed first, so all the chains are in the table.
+     *
+     * @return Metrics snapshot.
+     */
+    @Override
+    public MapMetrics getMetrics() {
+        if (oldTable != null) {
+            moveChains(oldTable.length);
+        }
+        long[] histogram = new long[TREEIFY_THRESHOLD + 1];
+        for (Node<K, V> node : table) {
+            if (node != null) {
+                int length = 0;
+                for (Node<K, V> n = node; n != null; n = n.next) {
+                    length++;
+                }
+                histogram = MapMetrics.count(histogram, length);
+            }
+        }
+        return new MapMetrics(MapMetrics.LengthType.CHAIN, MapMetrics.trim(histogram), size, table.length, -1,
+                getEqualsCallsPerLookup(), rehashesCounter, lastResizeNanos, totalResizeNanos);
+    }
+
+    /**
+     * Iterates and splits the chains of the range [index, fence) of the table. A split halves the range,
+     * so the size is known exactly only until the first split, and is estimated as a half afterwards.
+     */
+    private static final class ChainSpliterator<K, V> implements Spliterator<java.util.Map.Entry<K, V>>,
+            Iterator<java.util.Map.Entry<K, V>> {
+
+        private final Node<K, V>[] chains;
+        private int index;
+        private final int fence;
+        // The next node of the chain being iterated
+        private Node<K, V> current;
+        private long estimate;
+        private boolean exact = true;
+
+        ChainSpliterator(Node<K, V>[] chains, int index, int fence, long estimate) {
+            this.chains = chains;
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null && index < fence) {
+                current = chains[index++];
+            }
+            return current != null;
+        }
+
+        @Override
+        public java.util.Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = current;
+            current = node.next;
+            estimate--;
+            return node;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super java.util.Map.Entry<K, V>> action) {
+            if (!hasNext()) {
+                return false;
+            }
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super java.util.Map.Entry<K, V>> action) {
+            for (Node<K, V> node = current; node != null; node = node.next) {
+                action.accept(node);
+            }
+            for (; index < fence; index++) {
+                for (Node<K, V> node = chains[index]; node != null; node = node.next) {
+                    action.accept(node);
+                }
+            }
+            current = null;
+            estimate = 0;
+        }
+
+        @Override
+        public Spliterator<java.util.Map.Entry<K, V>> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (current != null || index >= mid) {
+                return null;
+            }
+            exact = false;
+            estimate >>>= 1;
+            ChainSpliterator<K, V> prefix = new ChainSpliterator<>(chains, index, mid, estimate);
+            prefix.exact = false;
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(estimate, 0);
+        }
+
+        @Override
+        public int characteristics() {
+            return (exact ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Creates an array of the chains; a generic array cannot be created directly.
+     *
+     * @param length
+     * @return array of null chains.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] newTable(int length) {
+        return (Node<K, V>[]) new Node<?, ?>[length];
+    }
 
+    protected static class Node<K, V> implements java.util.Map.Entry<K, V> {
+
+        // Hash code of the key, kept to skip equals() on mismatch and for rehashing
+        protected int hash;
         // Key
         protected K key;
         // Value
@@ -354,15 +1538,69 @@ public class HashMap<K, V> implements EvaluableMap<K, V> {
         protected Node() {
         }
 
-        protected Node(K key, V value, Node<K, V> next) {
+        protected Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
             this.key = key;
             this.value = value;
             this.next = next;
         }
 
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * Returns the value of the node. The maps read values through this method only,
+         * so a subclass may create the value lazily.
+         *
+         * @return value
+         */
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * Not supported: the value is replaced by put() of the map, which keeps its parameters.
+         */
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("setValue(V value) of a map entry");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof java.util.Map.Entry)) return false;
+            java.util.Map.Entry<?, ?> entry = (java.util.Map.Entry<?, ?>) o;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
         @Override
         public String toString() {
-            return key + "=" + value;
+            return key + "=" + getValue();
+        }
+    }
+
+    protected static class TreeNode<K, V> extends Node<K, V> {
+
+        // The hash code of the key is the primary order of the tree
+        protected TreeNode<K, V> left;
+        protected TreeNode<K, V> right;
+        // Previous node of the bin list
+        protected TreeNode<K, V> prev;
+        protected int height;
+        // The number of nodes in the bin, kept by the first node only
+        protected int binSize;
+
+        protected TreeNode(int hash, K key, V value) {
+            super(hash, key, value, null);
         }
     }
 }
@@ -7,32 +7,66 @@ package utils;
 
 
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * @author Darius
  */
-public class HashMapOa<K, V> implements EvaluableMap<K, V> {
+public class HashMapOa<K, V> implements EvaluableMap<K, V>, IterableMap<K, V> {
 
     public enum OpenAddressingType {
 
         LINEAR,
         QUADRATIC,
-        DOUBLE_HASHING
+        DOUBLE_HASHING,
+        ROBIN_HOOD,
+        HOPSCOTCH
     }
 
     public static final int DEFAULT_INITIAL_CAPACITY = 8;
     public static final float DEFAULT_LOAD_FACTOR = 0.75f;
     public static final HashManager.HashType DEFAULT_HASH_TYPE = HashManager.HashType.DIVISION;
     public static final OpenAddressingType DEFAULT_OPEN_ADDRESSING_TYPE = OpenAddressingType.LINEAR;
+    // Robin Hood tables are enlarged once an entry drifts further than this from its home index
+    public static final int ROBIN_HOOD_PROBE_LIMIT = 32;
+    // A hopscotch entry lies at most this many places from its home index: one bit of an int bitmap per place
+    public static final int HOPSCOTCH_NEIGHBORHOOD = 32;
+    // The table is not enlarged beyond this length
+    public static final int MAXIMUM_CAPACITY = 1 << 30;
+    // The number of keys getAll() resolves together
+    public static final int GET_ALL_GROUP = 16;
+    // A table whose occupied places exceed the load factor is compacted instead of enlarged,
+    // if at least this share of its places is DELETED
+    public static final float COMPACTION_THRESHOLD = 0.125f;
+    // The table is never shrunk by remove() by default
+    public static final float DEFAULT_SHRINK_LOAD_FACTOR = 0.0f;
 
     // Hash table
     protected Entry<K, V>[] table;
+    // Hopscotch neighborhoods: bit i of hopInfo[index] is set if the entry at index + i has its home at index
+    protected int[] hopInfo;
+    // Positions of the hopscotch entries which found no place in the neighborhood of their home index
+    // and their home indexes, in ascending order of the home index, so a lookup finds the entries of its home only
+    protected int[] overflow;
+    protected int[] overflowHome;
+    protected int overflowCount = 0;
+    // Bit i is set if an overflow entry has its home at index i, so other lookups skip the overflow positions
+    protected long[] overflowHomeBits;
     // The amount of key-value pairs
     protected int size = 0;
     // Load factor
     protected float loadFactor;
+    // Load below which remove() halves the table, 0 if the table is not shrunk
+    protected final float shrinkLoadFactor;
+    // remove() does not shrink the table below its initial length
+    protected final int initialLength;
     // Hash function
     protected HashManager.HashType ht;
     //--------------------------------------------------------------------------
@@ -42,11 +76,26 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
     protected int rehashesCounter = 0;
     // The index of last updated element
     protected int lastUpdated = 0;
-    // The number of occupied places in the hash table
+    // The number of occupied places in the hash table, DELETED places included
     protected int numberOfOccupied = 0;
+    // The number of DELETED places
+    protected int deletedCounter = 0;
+    // The longest probe sequence an entry needed to be placed
+    protected int maxProbeDistance = 0;
+    // Robin Hood: true if a removal may have shortened the longest probe sequence, so maxProbeDistance
+    // is only an upper bound, which lookups may still use
+    protected boolean maxProbeDistanceStale = false;
+    // The number of lookups and of key.equals() calls made by them
+    protected long lookupsCounter = 0;
+    protected long equalsCounter = 0;
+    // Durations of the last and of all the resizes, in nanoseconds
+    protected long lastResizeNanos = 0;
+    protected long totalResizeNanos = 0;
 
     private final Entry<K, V> DELETED = new Entry<>();
     private final OpenAddressingType oaType;
+    // Reference counts of the values, null if containsValue() scans the table
+    private final ValueIndex valueIndex;
 
     public HashMapOa() {
         this(DEFAULT_HASH_TYPE);
@@ -65,6 +114,39 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
     }
 
     public HashMapOa(int initialCapacity, float loadFactor, HashManager.HashType ht, OpenAddressingType oaType) {
+        this(initialCapacity, loadFactor, ht, oaType, false);
+    }
+
+    /**
+     * Creates the hash table, which, if valueIndexed, keeps a reverse index of its values, so
+     * containsValue() takes a lookup instead of a scan of the table. The index takes memory and time
+     * of every put() and remove(), and the values must not change their equals() and hashCode()
+     * while they are in the table.
+     *
+     * @param initialCapacity
+     * @param loadFactor
+     * @param ht
+     * @param oaType
+     * @param valueIndexed true if the reverse index of the values is kept
+     */
+    public HashMapOa(int initialCapacity, float loadFactor, HashManager.HashType ht, OpenAddressingType oaType, boolean valueIndexed) {
+        this(initialCapacity, loadFactor, ht, oaType, valueIndexed, DEFAULT_SHRINK_LOAD_FACTOR);
+    }
+
+    /**
+     * Creates the hash table, which remove() halves once its load drops below shrinkLoadFactor, but not
+     * below its initial capacity. The shrink load factor may be at most a quarter of the load factor,
+     * so a halved table is at most half loaded and is not enlarged again by the next put().
+     *
+     * @param initialCapacity
+     * @param loadFactor
+     * @param ht
+     * @param oaType
+     * @param valueIndexed     true if the reverse index of the values is kept
+     * @param shrinkLoadFactor load below which the table is halved, 0 if it is not shrunk
+     */
+    public HashMapOa(int initialCapacity, float loadFactor, HashManager.HashType ht, OpenAddressingType oaType,
+                     boolean valueIndexed, float shrinkLoadFactor) {
         if (initialCapacity <= 0) {
             throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
         }
@@ -73,10 +155,26 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
             throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
         }
 
-        this.table = new Entry[initialCapacity];
+        if (shrinkLoadFactor < 0.0 || shrinkLoadFactor > loadFactor / 4) {
+            throw new IllegalArgumentException("Illegal shrink load factor: " + shrinkLoadFactor);
+        }
+
         this.loadFactor = loadFactor;
+        this.shrinkLoadFactor = shrinkLoadFactor;
         this.ht = ht;
         this.oaType = oaType;
+        this.valueIndex = valueIndexed ? new ValueIndex() : null;
+        allocate(HashManager.tableSizeFor(initialCapacity, ht));
+        this.initialLength = table.length;
+    }
+
+    private void allocate(int length) {
+        table = newTable(length);
+        hopInfo = oaType == OpenAddressingType.HOPSCOTCH ? new int[length] : null;
+        overflow = oaType == OpenAddressingType.HOPSCOTCH ? new int[DEFAULT_INITIAL_CAPACITY] : null;
+        overflowHome = oaType == OpenAddressingType.HOPSCOTCH ? new int[DEFAULT_INITIAL_CAPACITY] : null;
+        overflowCount = 0;
+        overflowHomeBits = oaType == OpenAddressingType.HOPSCOTCH ? new long[(length + 63) >>> 6] : null;
     }
 
     /**
@@ -103,10 +201,27 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
     @Override
     public void clear() {
         Arrays.fill(table, null);
+        if (hopInfo != null) {
+            Arrays.fill(hopInfo, 0);
+        }
+        overflowCount = 0;
+        if (overflowHomeBits != null) {
+            Arrays.fill(overflowHomeBits, 0);
+        }
         size = 0;
         lastUpdated = 0;
         rehashesCounter = 0;
         numberOfOccupied = 0;
+        deletedCounter = 0;
+        maxProbeDistance = 0;
+        maxProbeDistanceStale = false;
+        lookupsCounter = 0;
+        equalsCounter = 0;
+        lastResizeNanos = 0;
+        totalResizeNanos = 0;
+        if (valueIndex != null) {
+            valueIndex.clear();
+        }
     }
 
     @Override
@@ -123,28 +238,261 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
         if (key == null || value == null) {
             throw new IllegalArgumentException("Key or value is null in put(K key, V value)");
         }
-        int position = findPosition(key, true);
+        if (oaType == OpenAddressingType.ROBIN_HOOD) {
+            return putRobinHood(key, value);
+        }
+        if (oaType == OpenAddressingType.HOPSCOTCH) {
+            return putHopscotch(key, value);
+        }
+
+        if (putValue(key.hashCode(), key, value)) {
+            checkLoad();
+        }
+        return value;
+    }
+
+    /**
+     * Enlarges or compacts the table, if its occupied places exceed the load factor after an insertion.
+     */
+    private void checkLoad() {
+        if (numberOfOccupied > table.length * loadFactor) {
+            if (size <= table.length * loadFactor && deletedCounter >= table.length * COMPACTION_THRESHOLD) {
+                compact();
+            } else {
+                rehash();
+            }
+        }
+    }
+
+    /**
+     * Adds the pairs of the given map. The table is enlarged once for all the pairs,
+     * so no rehash occurs while they are added.
+     *
+     * @param map
+     */
+    @Override
+    public void putAll(java.util.Map<? extends K, ? extends V> map) {
+        ensureCapacity(size + map.size());
+        map.forEach((key, value) -> {
+            if (key == null || value == null) {
+                throw new IllegalArgumentException("Key or value is null in putAll(Map map)");
+            }
+            putPresized(key, value);
+        });
+    }
+
+    /**
+     * Adds the pairs keys[i]-values[i]. The table is enlarged once for all the pairs,
+     * so no rehash occurs while they are added.
+     *
+     * @param keys
+     * @param values
+     */
+    @Override
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Different number of keys and values in putAll(K[] keys, V[] values)");
+        }
+        ensureCapacity(size + keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || values[i] == null) {
+                throw new IllegalArgumentException("Key or value is null in putAll(K[] keys, V[] values)");
+            }
+            putPresized(keys[i], values[i]);
+        }
+    }
+
+    private void putPresized(K key, V value) {
+        if (oaType == OpenAddressingType.ROBIN_HOOD) {
+            putRobinHood(key, value);
+        } else if (oaType == OpenAddressingType.HOPSCOTCH) {
+            putHopscotch(key, value);
+        } else {
+            putValue(key.hashCode(), key, value);
+        }
+    }
+
+    /**
+     * Enlarges the table, so that the expected number of pairs fits without exceeding the load factor.
+     * An empty table is just replaced, which is not counted as a rehash.
+     *
+     * @param expectedSize
+     */
+    private void ensureCapacity(int expectedSize) {
+        int length = table.length;
+        while (length * loadFactor < expectedSize && length < MAXIMUM_CAPACITY) {
+            length = (int) Math.min(2L * length, MAXIMUM_CAPACITY);
+        }
+        if (length == table.length) {
+            return;
+        }
+        if (size == 0) {
+            allocate(length);
+            numberOfOccupied = 0;
+            deletedCounter = 0;
+            maxProbeDistance = 0;
+            lastUpdated = 0;
+            return;
+        }
+        resize(length);
+    }
+
+    /**
+     * Adds or updates the pair without checking the load of the table.
+     *
+     * @param hash hash code of the key
+     * @param key
+     * @param value
+     * @return true if a new pair was added
+     */
+    private boolean putValue(int hash, K key, V value) {
+        int position = findPosition(key, hash, true);
         if (position == -1) {
             rehash();
-            return put(key, value);
+            return putValue(hash, key, value);
         }
 
-        if (table[position] == null || DELETED.equals(table[position])) {
-            table[position] = new Entry(key, value);
-            size++;
+        lastUpdated = position;
+        if (table[position] != null && table[position] != DELETED) {
+            replaceValue(table[position], value);
+            return false;
+        }
 
-            if (size > table.length * loadFactor) {
-                rehash();
-            } else {
-                numberOfOccupied++;
+        insertEntry(position, hash, key, value);
+        return true;
+    }
+
+    /**
+     * Adds the pair, whose key is absent, to the empty or DELETED place found by findPosition().
+     *
+     * @param position
+     * @param hash     hash code of the key
+     * @param key
+     * @param value
+     */
+    private void insertEntry(int position, int hash, K key, V value) {
+        if (table[position] == DELETED) {
+            deletedCounter--;
+        } else {
+            numberOfOccupied++;
+        }
+        table[position] = new Entry<>(hash, key, value);
+        if (valueIndex != null) {
+            valueIndex.add(value);
+        }
+        size++;
+    }
+
+    /**
+     * Computes a new value for the key with a single probe sequence: the value of an existing entry is
+     * replaced in place, and with linear, quadratic or double hashing probing, a new entry takes the
+     * free place found by the same probe sequence. Robin Hood and hopscotch insertions, which move other
+     * entries, and the removal of an entry, when the new value is null, probe the key again.
+     * So do computeIfAbsent(), computeIfPresent() and merge().
+     *
+     * @param key
+     * @param remappingFunction function computing the new value
+     * @return the new value associated with the key, or null if none.
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key or function is null in compute(K key, BiFunction remappingFunction)");
+        }
+        int hash = key.hashCode();
+        int position = findForCompute(key, hash);
+        Entry<K, V> entry = entryAt(position);
+        return putComputed(position, hash, key, entry, remappingFunction.apply(key, entry == null ? null : entry.value));
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null) {
+            throw new IllegalArgumentException("Key or function is null in computeIfAbsent(K key, Function mappingFunction)");
+        }
+        int hash = key.hashCode();
+        int position = findForCompute(key, hash);
+        Entry<K, V> entry = entryAt(position);
+        if (entry != null) {
+            return entry.value;
+        }
+        return putComputed(position, hash, key, null, mappingFunction.apply(key));
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key or function is null in computeIfPresent(K key, BiFunction remappingFunction)");
+        }
+        int hash = key.hashCode();
+        int position = findForCompute(key, hash);
+        Entry<K, V> entry = entryAt(position);
+        if (entry == null) {
+            return null;
+        }
+        return putComputed(position, hash, key, entry, remappingFunction.apply(key, entry.value));
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (key == null || value == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key, value or function is null in merge(K key, V value, BiFunction remappingFunction)");
+        }
+        int hash = key.hashCode();
+        int position = findForCompute(key, hash);
+        Entry<K, V> entry = entryAt(position);
+        return putComputed(position, hash, key, entry, entry == null ? value : remappingFunction.apply(entry.value, value));
+    }
+
+    /**
+     * Returns the position of the key or, with linear, quadratic or double hashing probing,
+     * the free position for it, as put() would find it.
+     *
+     * @param key
+     * @param hash hash code of the key
+     * @return position of the key, a free position, or -1
+     */
+    private int findForCompute(K key, int hash) {
+        if (oaType == OpenAddressingType.ROBIN_HOOD || oaType == OpenAddressingType.HOPSCOTCH) {
+            return findKey(key);
+        }
+        return findPosition(key, hash, true);
+    }
+
+    private Entry<K, V> entryAt(int position) {
+        return position == -1 || table[position] == DELETED ? null : table[position];
+    }
+
+    /**
+     * Stores the value computed for the key: replaces the value of its entry, adds a new entry to the
+     * free position found for the key, or removes the entry, if the value is null.
+     *
+     * @param position position of the key, a free position or -1, as found by findForCompute()
+     * @param hash     hash code of the key
+     * @param key
+     * @param entry    entry of the key, null if the key was not found
+     * @param newValue computed value
+     * @return the new value associated with the key, or null if none.
+     */
+    private V putComputed(int position, int hash, K key, Entry<K, V> entry, V newValue) {
+        if (entry == null) {
+            if (newValue == null) {
+                return null;
+            }
+            if (position != -1 && oaType != OpenAddressingType.ROBIN_HOOD && oaType != OpenAddressingType.HOPSCOTCH) {
                 lastUpdated = position;
+                insertEntry(position, hash, key, newValue);
+                checkLoad();
+            } else {
+                put(key, newValue);
             }
-        } else {
-            table[position].value = value;
+        } else if (newValue == null) {
+            remove(key);
+        } else if (newValue != entry.value) {
             lastUpdated = position;
+            replaceValue(entry, newValue);
         }
-
-        return value;
+        return newValue;
     }
 
     @Override
@@ -153,12 +501,58 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
             throw new IllegalArgumentException("Key is null in get(K key)");
         }
 
-        int position = findPosition(key, false);
-        if (position != -1 && table[position] != null && table[position] != DELETED) {
-            return table[position].value;
-        }
+        int position = findKey(key);
+        return position == -1 ? null : table[position].value;
+    }
 
-        return null;
+    /**
+     * Looks up the keys in groups of GET_ALL_GROUP: the hash codes and home indexes of the group are
+     * computed first, then the entries at the home indexes are read, then their hash codes are compared,
+     * and only then are the keys compared and, if a key is not at its home index, its probe sequence walked.
+     * The reads of one stage do not depend on each other, so the processor overlaps their cache misses
+     * instead of waiting for them one lookup after another.
+     *
+     * @param keys keys.
+     * @param out  array for the values, as long as keys.
+     */
+    @Override
+    public void getAll(K[] keys, V[] out) {
+        if (keys.length != out.length) {
+            throw new IllegalArgumentException("Different number of keys and values in getAll(K[] keys, V[] out)");
+        }
+        int[] hashes = new int[GET_ALL_GROUP];
+        Entry<K, V>[] homes = newTable(GET_ALL_GROUP);
+        for (int start = 0; start < keys.length; start += GET_ALL_GROUP) {
+            int count = Math.min(GET_ALL_GROUP, keys.length - start);
+            for (int i = 0; i < count; i++) {
+                if (keys[start + i] == null) {
+                    throw new IllegalArgumentException("Key is null in getAll(K[] keys, V[] out)");
+                }
+                hashes[i] = keys[start + i].hashCode();
+            }
+            for (int i = 0; i < count; i++) {
+                homes[i] = table[home(hashes[i])];
+            }
+            // Only an entry with the hash code of the key can be the key at its home index
+            for (int i = 0; i < count; i++) {
+                Entry<K, V> entry = homes[i];
+                if (entry == DELETED || entry != null && entry.hash != hashes[i]) {
+                    homes[i] = null;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                Entry<K, V> entry = homes[i];
+                K key = keys[start + i];
+                if (entry != null && entry.key.equals(key)) {
+                    lookupsCounter++;
+                    equalsCounter++;
+                    out[start + i] = entry.value;
+                } else {
+                    int position = findKey(key, hashes[i]);
+                    out[start + i] = position == -1 ? null : table[position].value;
+                }
+            }
+        }
     }
 
     @Override
@@ -166,64 +560,779 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
         if (key == null) {
             throw new IllegalArgumentException("Key is null in remove(K key)");
         }
+        if (oaType == OpenAddressingType.ROBIN_HOOD) {
+            return removeRobinHood(key);
+        }
+        if (oaType == OpenAddressingType.HOPSCOTCH) {
+            return removeHopscotch(key);
+        }
 
-        int position = findPosition(key, false);
-
-        if (position != -1 && table[position] != null && !DELETED.equals(table[position])) {
-            V value = table[position].value;
-            table[position] = DELETED;
-            size--;
-            return value;
+        int position = findKey(key);
+        if (position == -1) {
+            return null;
         }
 
-        return null;
+        V value = table[position].value;
+        if (valueIndex != null) {
+            valueIndex.remove(value);
+        }
+        table[position] = DELETED;
+        deletedCounter++;
+        size--;
+        shrinkIfSparse();
+        return value;
     }
 
     @Override
     public String toString() {
         return Arrays.stream(table)
-                .filter(entry -> entry != null && !DELETED.equals(entry))
+                .filter(entry -> entry != null && entry != DELETED)
                 .map(Entry::toString)
                 .collect(Collectors.joining(System.lineSeparator()));
     }
 
     private void rehash() {
-        HashMapOa<K, V> newMap = new HashMapOa<>(table.length * 2, loadFactor, ht, oaType);
-        Arrays.stream(table).filter(Objects::nonNull).forEach(kvEntry -> newMap.put(kvEntry.key, kvEntry.value));
-        table = newMap.table;
-        numberOfOccupied = newMap.numberOfOccupied;
-        lastUpdated = newMap.lastUpdated;
+        if (table.length >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Hash table cannot be enlarged beyond " + MAXIMUM_CAPACITY + " places");
+        }
+        resize((int) Math.min(2L * table.length, MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Halves the table, if its load has dropped below shrinkLoadFactor.
+     */
+    private void shrinkIfSparse() {
+        if (size < table.length * shrinkLoadFactor && table.length > initialLength && table.length % 2 == 0) {
+            resize(table.length / 2);
+        }
+    }
+
+    /**
+     * Halves the table while the pairs fit into the half without exceeding the load factor,
+     * so the table takes no more memory than its pairs need. The DELETED places are dropped too.
+     *
+     * @return the number of places released.
+     */
+    public int trimToSize() {
+        int length = table.length;
+        while (length % 2 == 0 && size <= length / 2 * loadFactor) {
+            length /= 2;
+        }
+        int released = table.length - length;
+        if (released > 0) {
+            resize(length);
+        }
+        return released;
+    }
+
+    /**
+     * Places the entries into a table of the given length, which is doubled while a probe sequence finds
+     * no free place there. If the entries do not fit even into a table of MAXIMUM_CAPACITY,
+     * the old table is kept.
+     *
+     * @param length the new table length
+     */
+    private void resize(int length) {
+        long start = System.nanoTime();
+        Entry<K, V>[] oldTable = table;
+        int[] oldHopInfo = hopInfo;
+        int[] oldOverflow = overflow;
+        int[] oldOverflowHome = overflowHome;
+        int oldOverflowCount = overflowCount;
+        long[] oldOverflowHomeBits = overflowHomeBits;
+        int oldOccupied = numberOfOccupied;
+        int oldDeleted = deletedCounter;
+        int oldMaxProbeDistance = maxProbeDistance;
+        boolean oldMaxProbeDistanceStale = maxProbeDistanceStale;
+        int oldLastUpdated = lastUpdated;
+        while (!rehashInto(oldTable, length)) {
+            if (length >= MAXIMUM_CAPACITY) {
+                table = oldTable;
+                hopInfo = oldHopInfo;
+                overflow = oldOverflow;
+                overflowHome = oldOverflowHome;
+                overflowCount = oldOverflowCount;
+                overflowHomeBits = oldOverflowHomeBits;
+                numberOfOccupied = oldOccupied;
+                deletedCounter = oldDeleted;
+                maxProbeDistance = oldMaxProbeDistance;
+                maxProbeDistanceStale = oldMaxProbeDistanceStale;
+                lastUpdated = oldLastUpdated;
+                throw new IllegalStateException("Hash table cannot be enlarged beyond " + MAXIMUM_CAPACITY + " places");
+            }
+            length = (int) Math.min(2L * length, MAXIMUM_CAPACITY);
+        }
         rehashesCounter++;
+        recordResize(start);
+    }
+
+    private void recordResize(long start) {
+        lastResizeNanos = System.nanoTime() - start;
+        totalResizeNanos += lastResizeNanos;
     }
 
-    private int findPosition(K key, boolean stopAtDeleted) {
-        int index = HashManager.hash(key.hashCode(), table.length, ht);
+    /**
+     * Places the entries of the old table into a new table of the given length by their stored
+     * hash codes, so neither hashCode() nor equals() of the keys is called.
+     *
+     * @param oldTable
+     * @param length
+     * @return false if a probe sequence found no free place, so a larger table is needed
+     */
+    private boolean rehashInto(Entry<K, V>[] oldTable, int length) {
+        allocate(length);
+        numberOfOccupied = 0;
+        deletedCounter = 0;
+        maxProbeDistance = 0;
+        maxProbeDistanceStale = false;
+        for (Entry<K, V> entry : oldTable) {
+            if (entry != null && entry != DELETED) {
+                int position;
+                if (oaType == OpenAddressingType.ROBIN_HOOD) {
+                    position = placeRobinHood(entry);
+                } else if (oaType == OpenAddressingType.HOPSCOTCH) {
+                    position = placeHopscotch(entry);
+                    if (position == -1) {
+                        position = placeOverflow(entry);
+                    }
+                } else {
+                    position = placeEntry(entry);
+                }
+                if (position == -1) {
+                    return false;
+                }
+                numberOfOccupied++;
+                lastUpdated = position;
+            }
+        }
+        return true;
+    }
 
+    /**
+     * Removes the DELETED places without enlarging the table. The DELETED places are emptied, and then
+     * every entry is moved to the first place of its probe sequence which is empty or holds an entry
+     * not moved yet; such an entry is swapped out and moved next. The moved entries are marked in a
+     * bitmap, so no other table is allocated, and neither hashCode() nor equals() of the keys is called.
+     * If a probe sequence finds no such place, the table is enlarged instead.
+     */
+    private void compact() {
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == DELETED) {
+                table[i] = null;
+            }
+        }
+        long[] moved = new long[(table.length + 63) >>> 6];
+        maxProbeDistance = 0;
+        for (int i = 0; i < table.length; i++) {
+            while (table[i] != null && (moved[i >>> 6] & 1L << i) == 0) {
+                Entry<K, V> entry = table[i];
+                int position = findCompactedPosition(entry, moved);
+                if (position == -1) {
+                    rehash();
+                    return;
+                }
+                moved[position >>> 6] |= 1L << position;
+                table[i] = table[position];
+                table[position] = entry;
+            }
+        }
+        numberOfOccupied = size;
+        deletedCounter = 0;
+    }
+
+    /**
+     * Returns the first place of the probe sequence of the entry, which is empty or holds an entry not moved yet.
+     *
+     * @param entry
+     * @param moved bitmap of the places of the moved entries
+     * @return the position or -1 if the probe sequence is exhausted
+     */
+    private int findCompactedPosition(Entry<K, V> entry, long[] moved) {
+        int index = home(entry.hash);
         int position = index;
         for (int i = 0; i < table.length; i++) {
-            if (table[position] == null) {
+            if (table[position] == null || (moved[position >>> 6] & 1L << position) == 0) {
+                maxProbeDistance = Math.max(maxProbeDistance, i);
                 return position;
             }
-            if (DELETED.equals(table[position]) && stopAtDeleted) {
+            position = calculatePosition(index, i, entry.hash);
+        }
+        return -1;
+    }
+
+    /**
+     * Places the entry to the first empty place of its probe sequence. The table must not contain the key.
+     *
+     * @param entry
+     * @return the position of the entry or -1 if the probe sequence is exhausted
+     */
+    private int placeEntry(Entry<K, V> entry) {
+        int index = home(entry.hash);
+        int position = index;
+        for (int i = 0; i < table.length; i++) {
+            if (table[position] == null) {
+                table[position] = entry;
+                maxProbeDistance = Math.max(maxProbeDistance, i);
                 return position;
             }
-            if (!DELETED.equals(table[position]) && table[position].key.equals(key)) {
-                return position;
+            position = calculatePosition(index, i, entry.hash);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of the key in the hash table or -1, if the key is absent.
+     *
+     * @param key
+     * @return position of the key or -1
+     */
+    private int findKey(K key) {
+        return findKey(key, key.hashCode());
+    }
+
+    private int findKey(K key, int hash) {
+        if (oaType == OpenAddressingType.ROBIN_HOOD) {
+            return findRobinHood(key, hash);
+        }
+        if (oaType == OpenAddressingType.HOPSCOTCH) {
+            return findHopscotch(key, hash);
+        }
+
+        int position = findPosition(key, hash, false);
+        if (position != -1 && table[position] != null && table[position] != DELETED) {
+            return position;
+        }
+        return -1;
+    }
+
+    /**
+     * Walks the probe sequence of the key. The position of the key is returned if it is found.
+     * Otherwise the first free position is returned: when forInsertion is true, an earlier DELETED
+     * place is preferred, so that it can be reused without duplicating the key stored further on.
+     *
+     * @param key
+     * @param hash hash code of the key
+     * @param forInsertion
+     * @return the position of the key, a free position, or -1 if the probe sequence is exhausted
+     */
+    private int findPosition(K key, int hash, boolean forInsertion) {
+        lookupsCounter++;
+        int index = home(hash);
+
+        int firstDeleted = -1;
+        int firstDeletedProbe = 0;
+        int position = index;
+        for (int i = 0; i < table.length; i++) {
+            Entry<K, V> entry = table[position];
+            if (entry == null) {
+                if (!forInsertion) {
+                    return position;
+                }
+                if (firstDeleted == -1) {
+                    maxProbeDistance = Math.max(maxProbeDistance, i);
+                    return position;
+                }
+                break;
+            }
+            if (entry == DELETED) {
+                if (firstDeleted == -1) {
+                    firstDeleted = position;
+                    firstDeletedProbe = i;
+                }
+            } else if (entry.hash == hash) {
+                equalsCounter++;
+                if (entry.key.equals(key)) {
+                    return position;
+                }
+            }
+
+            position = calculatePosition(index, i, hash);
+        }
+
+        if (forInsertion && firstDeleted != -1) {
+            maxProbeDistance = Math.max(maxProbeDistance, firstDeletedProbe);
+            return firstDeleted;
+        }
+        return -1;
+    }
+
+    /**
+     * Robin Hood insertion. Entries are probed linearly; the new entry takes the place of
+     * any entry which is closer to its home index, and the displaced entry moves on.
+     *
+     * @param key
+     * @param value
+     * @return added value
+     */
+    private V putRobinHood(K key, V value) {
+        int hash = key.hashCode();
+        int position = findRobinHood(key, hash);
+        if (position != -1) {
+            replaceValue(table[position], value);
+            lastUpdated = position;
+            return value;
+        }
+
+        if (size == table.length) {
+            rehash();
+        }
+
+        int placedAt = placeRobinHood(new Entry<>(hash, key, value));
+        if (valueIndex != null) {
+            valueIndex.add(value);
+        }
+        size++;
+
+        boolean probesTooLong = size > table.length * loadFactor / 2 && currentMaxProbeDistance() > ROBIN_HOOD_PROBE_LIMIT;
+        if (size > table.length * loadFactor || probesTooLong) {
+            rehash();
+        } else {
+            numberOfOccupied++;
+            lastUpdated = placedAt;
+        }
+        return value;
+    }
+
+    /**
+     * Places the entry by Robin Hood displacement. The table must not contain the key
+     * and must have an empty place.
+     *
+     * @param entry
+     * @return the position of the entry
+     */
+    private int placeRobinHood(Entry<K, V> entry) {
+        int position = home(entry.hash);
+        int distance = 0;
+        int placedAt = -1;
+        while (entry != null) {
+            Entry<K, V> current = table[position];
+            int currentDistance = current == null ? -1 : probeDistance(current, position);
+            if (currentDistance < distance) {
+                table[position] = entry;
+                maxProbeDistance = Math.max(maxProbeDistance, distance);
+                if (placedAt == -1) {
+                    placedAt = position;
+                }
+                entry = current;
+                distance = currentDistance;
             }
+            position = (position + 1) % table.length;
+            distance++;
+        }
+        return placedAt;
+    }
 
-            position = calculatePosition(index, i, key);
+    /**
+     * Robin Hood lookup. The search stops as soon as the probed entry is closer to its
+     * home index than the key would be, and never probes further than maxProbeDistance.
+     *
+     * @param key
+     * @param hash hash code of the key
+     * @return position of the key or -1
+     */
+    private int findRobinHood(K key, int hash) {
+        lookupsCounter++;
+        int position = home(hash);
+        for (int distance = 0; distance <= maxProbeDistance; distance++) {
+            Entry<K, V> entry = table[position];
+            if (entry == null || probeDistance(entry, position) < distance) {
+                return -1;
+            }
+            if (entry.hash == hash) {
+                equalsCounter++;
+                if (entry.key.equals(key)) {
+                    return position;
+                }
+            }
+            position = (position + 1) % table.length;
         }
         return -1;
     }
 
-    private int calculatePosition(int index, int i, K key) {
+    /**
+     * Robin Hood removal with backward-shift deletion: the following entries of the cluster
+     * are moved one place back, so no DELETED markers are left in the table.
+     *
+     * @param key
+     * @return value associated with key or null, if no value is associated with the key.
+     */
+    private V removeRobinHood(K key) {
+        int position = findRobinHood(key, key.hashCode());
+        if (position == -1) {
+            return null;
+        }
+
+        V value = table[position].value;
+        if (valueIndex != null) {
+            valueIndex.remove(value);
+        }
+        int next = (position + 1) % table.length;
+        while (table[next] != null && probeDistance(table[next], next) > 0) {
+            table[position] = table[next];
+            position = next;
+            next = (next + 1) % table.length;
+        }
+        table[position] = null;
+        maxProbeDistanceStale = true;
+        size--;
+        numberOfOccupied--;
+        shrinkIfSparse();
+        return value;
+    }
+
+    /**
+     * Returns the longest probe distance of the entries in the table. After Robin Hood removals,
+     * which shift entries back, it is recomputed from the entries instead of the stored upper bound.
+     *
+     * @return the maximum probe distance.
+     */
+    private int currentMaxProbeDistance() {
+        if (maxProbeDistanceStale) {
+            int max = 0;
+            for (int i = 0; i < table.length; i++) {
+                if (table[i] != null) {
+                    max = Math.max(max, probeDistance(table[i], i));
+                }
+            }
+            maxProbeDistance = max;
+            maxProbeDistanceStale = false;
+        }
+        return maxProbeDistance;
+    }
+
+    /**
+     * Hopscotch insertion. The entry is placed into the first empty place after its home index;
+     * while that place is not within the neighborhood of the home index, it is swapped with
+     * an entry closer to it, which stays within its own neighborhood. If no swap is possible, the table
+     * is doubled, unless it is less than half loaded or a doubled table would not change the neighborhood,
+     * e.g. when more than HOPSCOTCH_NEIGHBORHOOD keys share a hash code: then the entry takes the empty
+     * place as an overflow entry.
+     *
+     * @param key
+     * @param value
+     * @return added value
+     */
+    private V putHopscotch(K key, V value) {
+        int hash = key.hashCode();
+        int position = findHopscotch(key, hash);
+        if (position != -1) {
+            replaceValue(table[position], value);
+            lastUpdated = position;
+            return value;
+        }
+
+        Entry<K, V> entry = new Entry<>(hash, key, value);
+        int placedAt;
+        while ((placedAt = placeHopscotch(entry)) == -1) {
+            boolean enlarge = size > table.length * loadFactor / 2 && canSplitNeighborhood(entry);
+            if (!enlarge && (placedAt = placeOverflow(entry)) != -1) {
+                break;
+            }
+            rehash();
+        }
+        if (valueIndex != null) {
+            valueIndex.add(value);
+        }
+        size++;
+
+        if (size > table.length * loadFactor) {
+            rehash();
+        } else {
+            numberOfOccupied++;
+            lastUpdated = placedAt;
+        }
+        return value;
+    }
+
+    /**
+     * Places the entry into the neighborhood of its home index. The table must not contain the key.
+     *
+     * @param entry
+     * @return the position of the entry or -1 if no place could be freed in the neighborhood
+     */
+    private int placeHopscotch(Entry<K, V> entry) {
+        int home = home(entry.hash);
+        int free = home;
+        int distance = 0;
+        while (table[free] != null) {
+            if (++distance == table.length) {
+                return -1;
+            }
+            free = (free + 1) % table.length;
+        }
+
+        while (distance >= HOPSCOTCH_NEIGHBORHOOD) {
+            int moved = -1;
+            // the farthest home index first, as its entries are the closest to the start of the free place
+            for (int i = HOPSCOTCH_NEIGHBORHOOD - 1; i > 0 && moved == -1; i--) {
+                int candidateHome = (free - i + table.length) % table.length;
+                int closer = hopInfo[candidateHome] & ((1 << i) - 1);
+                if (closer != 0) {
+                    int offset = Integer.numberOfTrailingZeros(closer);
+                    moved = (candidateHome + offset) % table.length;
+                    table[free] = table[moved];
+                    table[moved] = null;
+                    hopInfo[candidateHome] ^= (1 << offset) | (1 << i);
+                }
+            }
+            if (moved == -1) {
+                return -1;
+            }
+            free = moved;
+            distance = (free - home + table.length) % table.length;
+        }
+
+        table[free] = entry;
+        hopInfo[home] |= 1 << distance;
+        maxProbeDistance = Math.max(maxProbeDistance, distance);
+        return free;
+    }
+
+    /**
+     * Places the entry into the first empty place after its home index and records the place in the
+     * overflow positions, which lookups search after the neighborhood. The table must not contain the key.
+     *
+     * @param entry
+     * @return the position of the entry or -1 if the table is full
+     */
+    private int placeOverflow(Entry<K, V> entry) {
+        int home = home(entry.hash);
+        int position = home;
+        int distance = 0;
+        while (table[position] != null) {
+            if (++distance == table.length) {
+                return -1;
+            }
+            position = (position + 1) % table.length;
+        }
+
+        table[position] = entry;
+        if (overflowCount == overflow.length) {
+            overflow = Arrays.copyOf(overflow, 2 * overflow.length);
+            overflowHome = Arrays.copyOf(overflowHome, 2 * overflowHome.length);
+        }
+        // after the entries of the same home index, so the order of the home indexes is kept
+        int i = firstOverflowOf(home + 1);
+        System.arraycopy(overflow, i, overflow, i + 1, overflowCount - i);
+        System.arraycopy(overflowHome, i, overflowHome, i + 1, overflowCount - i);
+        overflow[i] = position;
+        overflowHome[i] = home;
+        overflowCount++;
+        overflowHomeBits[home >>> 6] |= 1L << home;
+        maxProbeDistance = Math.max(maxProbeDistance, distance);
+        return position;
+    }
+
+    /**
+     * Checks if a table of twice the length changes the layout of the neighborhood of the entry's home index:
+     * if the home index of any entry of the neighborhood gets another offset from the home index of the entry.
+     * Otherwise the doubled table holds the same neighborhood, in which no place can be freed either.
+     * Neither can it be freed if all the entries of the home index keep one home index in the doubled table,
+     * as more than HOPSCOTCH_NEIGHBORHOOD keys with one hash code do in a table of any length.
+     *
+     * @param entry entry which could not be placed
+     * @return true if the table should be doubled.
+     */
+    private boolean canSplitNeighborhood(Entry<K, V> entry) {
+        if (table.length >= MAXIMUM_CAPACITY) {
+            return false;
+        }
+        int length = table.length;
+        int doubledLength = (int) Math.min(2L * length, MAXIMUM_CAPACITY);
+        int home = home(entry.hash);
+        int doubledHome = home(entry.hash, doubledLength);
+        int staying = 0;
+        for (int bits = hopInfo[home]; bits != 0; bits &= bits - 1) {
+            Entry<K, V> neighbor = table[(home + Integer.numberOfTrailingZeros(bits)) % length];
+            if (home(neighbor.hash, doubledLength) == doubledHome) {
+                staying++;
+            }
+        }
+        if (staying >= HOPSCOTCH_NEIGHBORHOOD) {
+            return false;
+        }
+        for (int i = 0; i < Math.min(HOPSCOTCH_NEIGHBORHOOD, length); i++) {
+            Entry<K, V> neighbor = table[(home + i) % length];
+            if (neighbor != null) {
+                if (homeOffset(home(neighbor.hash), home, length)
+                        != homeOffset(home(neighbor.hash, doubledLength), doubledHome, doubledLength)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the offset of the home index from the other home index, negative if it precedes the other
+     * one, so that a neighbor from an earlier home index keeps its offset in a table of another length.
+     */
+    private static int homeOffset(int home, int otherHome, int length) {
+        int offset = (home - otherHome + length) % length;
+        return offset > length / 2 ? offset - length : offset;
+    }
+
+    /**
+     * Hopscotch lookup. Only the places of the neighborhood marked in the bitmap of the home index are probed,
+     * and then the overflow positions, if an overflow entry has the same home index.
+     *
+     * @param key
+     * @param hash hash code of the key
+     * @return position of the key or -1
+     */
+    private int findHopscotch(K key, int hash) {
+        lookupsCounter++;
+        int home = home(hash);
+        for (int bits = hopInfo[home]; bits != 0; bits &= bits - 1) {
+            int position = (home + Integer.numberOfTrailingZeros(bits)) % table.length;
+            Entry<K, V> entry = table[position];
+            if (entry.hash == hash) {
+                equalsCounter++;
+                if (entry.key.equals(key)) {
+                    return position;
+                }
+            }
+        }
+        if ((overflowHomeBits[home >>> 6] & 1L << home) == 0) {
+            return -1;
+        }
+        return findOverflow(key, hash, home);
+    }
+
+    private int findOverflow(K key, int hash, int home) {
+        for (int i = firstOverflowOf(home); i < overflowCount && overflowHome[i] == home; i++) {
+            Entry<K, V> entry = table[overflow[i]];
+            if (entry.hash == hash) {
+                equalsCounter++;
+                if (entry.key.equals(key)) {
+                    return overflow[i];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Hopscotch removal: the place is emptied and its bit is cleared, no DELETED marker is needed.
+     *
+     * @param key
+     * @return value associated with key or null, if no value is associated with the key.
+     */
+    private V removeHopscotch(K key) {
+        int hash = key.hashCode();
+        int position = findHopscotch(key, hash);
+        if (position == -1) {
+            return null;
+        }
+
+        V value = table[position].value;
+        if (valueIndex != null) {
+            valueIndex.remove(value);
+        }
+        int home = home(hash);
+        table[position] = null;
+        if ((overflowHomeBits[home >>> 6] & 1L << home) == 0 || !removeOverflow(position, home)) {
+            hopInfo[home] &= ~(1 << ((position - home + table.length) % table.length));
+        }
+        size--;
+        numberOfOccupied--;
+        shrinkIfSparse();
+        return value;
+    }
+
+    /**
+     * Removes the position from the overflow positions. The bit of the home index is cleared,
+     * if no other overflow entry has its home there.
+     *
+     * @param position
+     * @param home     home index of the removed entry
+     * @return false if the position is not an overflow position
+     */
+    private boolean removeOverflow(int position, int home) {
+        int first = firstOverflowOf(home);
+        for (int i = first; i < overflowCount && overflowHome[i] == home; i++) {
+            if (overflow[i] == position) {
+                overflowCount--;
+                System.arraycopy(overflow, i + 1, overflow, i, overflowCount - i);
+                System.arraycopy(overflowHome, i + 1, overflowHome, i, overflowCount - i);
+                if (first == overflowCount || overflowHome[first] != home) {
+                    overflowHomeBits[home >>> 6] &= ~(1L << home);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the first overflow entry whose home index is not less than the given one.
+     */
+    private int firstOverflowOf(int home) {
+        int low = 0;
+        int high = overflowCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (overflowHome[mid] < home) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int home(int hash) {
+        return home(hash, table.length);
+    }
+
+    /**
+     * Returns the home index of the hash code in a table of the given length. Hopscotch spreads the hash
+     * code first: a neighborhood holds only HOPSCOTCH_NEIGHBORHOOD places, so the close home indexes
+     * of close hash codes would overflow it however large the table is.
+     */
+    private int home(int hash, int length) {
+        return HashManager.hash(oaType == OpenAddressingType.HOPSCOTCH ? HashManager.spread(hash) : hash, length, ht);
+    }
+
+    private int probeDistance(Entry<K, V> entry, int position) {
+        int home = home(entry.hash);
+        return position >= home ? position - home : position + table.length - home;
+    }
+
+    /**
+     * Returns the number of places a lookup of the entry probes, up to and including its position.
+     * Quadratic and double hashing sequences are walked, the others are linear.
+     *
+     * @param entry
+     * @param position position of the entry
+     * @return probe length of the entry.
+     */
+    private int probeLength(Entry<K, V> entry, int position) {
+        if (oaType != OpenAddressingType.QUADRATIC && oaType != OpenAddressingType.DOUBLE_HASHING) {
+            return probeDistance(entry, position) + 1;
+        }
+        int index = home(entry.hash);
+        int probed = index;
+        for (int i = 0; i < table.length; i++) {
+            if (probed == position) {
+                return i + 1;
+            }
+            probed = calculatePosition(index, i, entry.hash);
+        }
+        return table.length;
+    }
+
+    private int calculatePosition(int index, int i, int hash) {
         switch (oaType) {
             case LINEAR:
                 return (index + i + 1) % table.length;
             case QUADRATIC:
                 return (index + (i + 1) * (i + 1)) % table.length;
             case DOUBLE_HASHING:
-                return (index + i * (7 - Math.abs(key.hashCode()) % 7)) % table.length;
+                return (index + i * (7 - Math.abs(hash) % 7)) % table.length;
+            case ROBIN_HOOD:
+            case HOPSCOTCH:
+                return (index + i + 1) % table.length;
         }
         return index;
     }
@@ -268,26 +1377,75 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
         return numberOfOccupied;
     }
 
+    /**
+     * Returns the longest probe sequence needed to place an entry. For Robin Hood tables, it is
+     * the longest probe sequence of the entries still in the table.
+     *
+     * @return the maximum probe distance.
+     */
+    @Override
+    public int getMaxProbeDistance() {
+        return currentMaxProbeDistance();
+    }
+
+    /**
+     * Returns the average number of key.equals() calls per lookup.
+     *
+     * @return equals() calls per lookup.
+     */
+    @Override
+    public double getEqualsCallsPerLookup() {
+        return lookupsCounter == 0 ? 0 : (double) equalsCounter / lookupsCounter;
+    }
+
+    /**
+     * Returns the snapshot with the histogram of the probe lengths of the entries, counted by walking the table.
+     *
+     * @return Metrics snapshot.
+     */
+    @Override
+    public MapMetrics getMetrics() {
+        long[] histogram = new long[maxProbeDistance + 2];
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null && table[i] != DELETED) {
+                histogram = MapMetrics.count(histogram, probeLength(table[i], i));
+            }
+        }
+        return new MapMetrics(MapMetrics.LengthType.PROBE, MapMetrics.trim(histogram), size, table.length, deletedCounter,
+                getEqualsCallsPerLookup(), rehashesCounter, lastResizeNanos, totalResizeNanos);
+    }
+
+    @Override
     public boolean replace(K key, V oldValue, V newValue) {
         if (key == null) {
             throw new IllegalArgumentException("Key is null in replace(K key, V oldValue, V newValue)");
         }
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replace(K key, V oldValue, V newValue)");
+        }
 
-        int position = findPosition(key, false);
-
-        if (position != -1 && table[position] != null && !DELETED.equals(table[position])) {
-            if (table[position].value.equals(oldValue)) {
-                table[position].value = newValue;
-                return true;
-            }
+        int position = findKey(key);
+        if (position != -1 && table[position].value.equals(oldValue)) {
+            replaceValue(table[position], newValue);
+            return true;
         }
 
         return false;
     }
 
+    private void replaceValue(Entry<K, V> entry, V value) {
+        if (valueIndex != null) {
+            valueIndex.replace(entry.value, value);
+        }
+        entry.value = value;
+    }
+
     public boolean containsValue(Object value) {
+        if (valueIndex != null) {
+            return valueIndex.contains(value);
+        }
         for (int i = 0; i < table.length; i++) {
-            if (table[i] != null && !DELETED.equals(table[i])) {
+            if (table[i] != null && table[i] != DELETED) {
                 if (table[i].value.equals(value)) {
                     return true;
                 }
@@ -296,8 +1454,125 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
         return false;
     }
 
-    protected static class Entry<K, V> {
+    /**
+     * Returns the iterator of the key-value pairs in the order of the places of the table.
+     *
+     * @return iterator of the entries.
+     */
+    @Override
+    public Iterator<java.util.Map.Entry<K, V>> iterator() {
+        return new SlotSpliterator<>(table, DELETED, 0, table.length, size);
+    }
+
+    /**
+     * Returns the spliterator of the key-value pairs, which splits the table into ranges of places.
+     *
+     * @return spliterator of the entries.
+     */
+    @Override
+    public Spliterator<java.util.Map.Entry<K, V>> spliterator() {
+        return new SlotSpliterator<>(table, DELETED, 0, table.length, size);
+    }
+
+    /**
+     * Iterates and splits the places of the range [index, fence) of the table. A split halves the range,
+     * so the size is known exactly only until the first split, and is estimated as a half afterwards.
+     */
+    private static final class SlotSpliterator<K, V> implements Spliterator<java.util.Map.Entry<K, V>>,
+            Iterator<java.util.Map.Entry<K, V>> {
+
+        private final Entry<K, V>[] table;
+        private final Entry<K, V> deleted;
+        private int index;
+        private final int fence;
+        private long estimate;
+        private boolean exact = true;
+
+        SlotSpliterator(Entry<K, V>[] table, Entry<K, V> deleted, int index, int fence, long estimate) {
+            this.table = table;
+            this.deleted = deleted;
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index < fence && (table[index] == null || table[index] == deleted)) {
+                index++;
+            }
+            return index < fence;
+        }
+
+        @Override
+        public java.util.Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            estimate--;
+            return table[index++];
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super java.util.Map.Entry<K, V>> action) {
+            if (!hasNext()) {
+                return false;
+            }
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super java.util.Map.Entry<K, V>> action) {
+            for (; index < fence; index++) {
+                Entry<K, V> entry = table[index];
+                if (entry != null && entry != deleted) {
+                    action.accept(entry);
+                }
+            }
+            estimate = 0;
+        }
+
+        @Override
+        public Spliterator<java.util.Map.Entry<K, V>> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (index >= mid) {
+                return null;
+            }
+            exact = false;
+            estimate >>>= 1;
+            SlotSpliterator<K, V> prefix = new SlotSpliterator<>(table, deleted, index, mid, estimate);
+            prefix.exact = false;
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(estimate, 0);
+        }
+
+        @Override
+        public int characteristics() {
+            return (exact ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Creates an array of the entries; a generic array cannot be created directly.
+     *
+     * @param length
+     * @return array of null entries.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] newTable(int length) {
+        return (Entry<K, V>[]) new Entry<?, ?>[length];
+    }
+
+    protected static class Entry<K, V> implements java.util.Map.Entry<K, V> {
 
+        // Hash code of the key, kept to skip equals() on mismatch and for rehashing
+        protected int hash;
         // Key
         protected K key;
         // Value
@@ -306,11 +1581,43 @@ public class HashMapOa<K, V> implements EvaluableMap<K, V> {
         protected Entry() {
         }
 
-        protected Entry(K key, V value) {
+        protected Entry(int hash, K key, V value) {
+            this.hash = hash;
             this.key = key;
             this.value = value;
         }
 
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * Not supported: the value is replaced by put() of the map, which keeps its parameters.
+         */
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("setValue(V value) of a map entry");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof java.util.Map.Entry)) return false;
+            java.util.Map.Entry<?, ?> entry = (java.util.Map.Entry<?, ?>) o;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
         @Override
         public String toString() {
             return key + "=" + value;
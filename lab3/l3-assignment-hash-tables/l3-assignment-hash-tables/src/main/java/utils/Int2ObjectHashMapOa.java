@@ -0,0 +1,322 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * The implementation of hash table with primitive int keys based on open addressing (linear probing).
+ * Keys and values are kept in two parallel arrays, so neither Integer boxing nor an entry object
+ * is needed per key-value pair. An empty place is marked by a null value. Removal shifts the
+ * following entries of the cluster back (backward-shift deletion), so no DELETED markers are used.
+ *
+ * @param <V> value type of hash table
+ */
+public class Int2ObjectHashMapOa<V> implements EvaluableMap<Integer, V> {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 8;
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    public static final HashManager.HashType DEFAULT_HASH_TYPE = HashManager.HashType.DIVISION;
+
+    // Keys of the hash table
+    protected int[] keys;
+    // Values of the hash table, null marks an empty place
+    protected Object[] values;
+    // The amount of key-value pairs
+    protected int size = 0;
+    // Load factor
+    protected float loadFactor;
+    // Hash function
+    protected HashManager.HashType ht;
+    //--------------------------------------------------------------------------
+    //  Parameters of hash table
+    //--------------------------------------------------------------------------
+    // The amount of rehashes
+    protected int rehashesCounter = 0;
+    // The index of last updated element
+    protected int lastUpdated = 0;
+    // The longest probe sequence an entry needed to be placed
+    protected int maxProbeDistance = 0;
+
+    public Int2ObjectHashMapOa() {
+        this(DEFAULT_HASH_TYPE);
+    }
+
+    public Int2ObjectHashMapOa(HashManager.HashType ht) {
+        this(DEFAULT_INITIAL_CAPACITY, ht);
+    }
+
+    public Int2ObjectHashMapOa(int initialCapacity, HashManager.HashType ht) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, ht);
+    }
+
+    public Int2ObjectHashMapOa(int initialCapacity, float loadFactor, HashManager.HashType ht) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if ((loadFactor <= 0.0) || (loadFactor >= 1.0)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        int length = HashManager.tableSizeFor(initialCapacity, ht);
+        this.keys = new int[length];
+        this.values = new Object[length];
+        this.loadFactor = loadFactor;
+        this.ht = ht;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        lastUpdated = 0;
+        rehashesCounter = 0;
+        maxProbeDistance = 0;
+    }
+
+    /**
+     * Primitive counterparts of the Map methods are named apart, as fastutil names them: overloads
+     * for int keys would make calls such as put(1, 2) ambiguous when the values are Integer.
+     */
+    public boolean containsInt(int key) {
+        return findPosition(key) != -1;
+    }
+
+    public V putInt(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value is null in putInt(int key, V value)");
+        }
+
+        int position = HashManager.hash(key, keys.length, ht);
+        int distance = 0;
+        while (values[position] != null) {
+            if (keys[position] == key) {
+                values[position] = value;
+                lastUpdated = position;
+                return value;
+            }
+            position = nextPosition(position);
+            distance++;
+        }
+
+        keys[position] = key;
+        values[position] = value;
+        size++;
+        maxProbeDistance = Math.max(maxProbeDistance, distance);
+        if (size > keys.length * loadFactor) {
+            rehash();
+        } else {
+            lastUpdated = position;
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getInt(int key) {
+        int position = findPosition(key);
+        return position == -1 ? null : (V) values[position];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V removeInt(int key) {
+        int position = findPosition(key);
+        if (position == -1) {
+            return null;
+        }
+
+        V value = (V) values[position];
+        // Backward shift: an entry of the cluster is moved into the hole,
+        // unless the hole lies before its home position in the probe sequence
+        int hole = position;
+        int next = nextPosition(hole);
+        while (values[next] != null) {
+            int home = HashManager.hash(keys[next], keys.length, ht);
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = nextPosition(next);
+        }
+        values[hole] = null;
+        size--;
+        return value;
+    }
+
+    public boolean replaceInt(int key, V oldValue, V newValue) {
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replaceInt(int key, V oldValue, V newValue)");
+        }
+
+        int position = findPosition(key);
+        if (position != -1 && values[position].equals(oldValue)) {
+            values[position] = newValue;
+            lastUpdated = position;
+            return true;
+        }
+        return false;
+    }
+
+    private int findPosition(int key) {
+        int position = HashManager.hash(key, keys.length, ht);
+        while (values[position] != null) {
+            if (keys[position] == key) {
+                return position;
+            }
+            position = nextPosition(position);
+        }
+        return -1;
+    }
+
+    private int nextPosition(int position) {
+        return position + 1 == keys.length ? 0 : position + 1;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        maxProbeDistance = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int position = HashManager.hash(oldKeys[i], keys.length, ht);
+                int distance = 0;
+                while (values[position] != null) {
+                    position = nextPosition(position);
+                    distance++;
+                }
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+                maxProbeDistance = Math.max(maxProbeDistance, distance);
+                lastUpdated = position;
+            }
+        }
+        rehashesCounter++;
+    }
+
+    //--------------------------------------------------------------------------
+    //  Map<Integer, V> methods, the keys are unboxed
+    //--------------------------------------------------------------------------
+
+    @Override
+    public V put(Integer key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key or value is null in put(K key, V value)");
+        }
+        return putInt(key, value);
+    }
+
+    @Override
+    public V get(Integer key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in get(K key)");
+        }
+        return getInt(key);
+    }
+
+    @Override
+    public V remove(Integer key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in remove(K key)");
+        }
+        return removeInt(key);
+    }
+
+    @Override
+    public boolean contains(Integer key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in contains(K key)");
+        }
+        return containsInt(key);
+    }
+
+    @Override
+    public boolean replace(Integer key, V oldValue, V newValue) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in replace(K key, V oldValue, V newValue)");
+        }
+        return replaceInt(key, oldValue, newValue);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Object v : values) {
+            if (v != null && v.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                result.append(keys[i]).append('=').append(values[i]).append(System.lineSeparator());
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the number of rehashes occurred in the hash table.
+     *
+     * @return number of rehashes.
+     */
+    @Override
+    public int getRehashesCounter() {
+        return rehashesCounter;
+    }
+
+    /**
+     * Returns the capacity of hash table.
+     *
+     * @return capacity of hash table.
+     */
+    @Override
+    public int getTableCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the index of last update element of the hash table.
+     *
+     * @return the index of last update element of the hash table.
+     */
+    @Override
+    public int getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Returns the number of occupied places in the hash table.
+     *
+     * @return the number of occupied places in the hash table.
+     */
+    @Override
+    public int getNumberOfOccupied() {
+        return size;
+    }
+
+    /**
+     * Returns the longest probe sequence needed to place an entry.
+     *
+     * @return the maximum probe distance.
+     */
+    @Override
+    public int getMaxProbeDistance() {
+        return maxProbeDistance;
+    }
+}
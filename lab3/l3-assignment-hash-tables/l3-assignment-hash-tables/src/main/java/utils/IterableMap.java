@@ -0,0 +1,92 @@
+package utils;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The map whose key-value pairs can be iterated and streamed. The entries are the nodes of the map
+ * itself, so they are not copied, and their setValue() is not supported. The map must not be modified
+ * while it is iterated.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public interface IterableMap<K, V> extends Map<K, V>, Iterable<java.util.Map.Entry<K, V>> {
+
+    /**
+     * Returns the iterator of the key-value pairs.
+     *
+     * @return iterator of the entries.
+     */
+    @Override
+    Iterator<java.util.Map.Entry<K, V>> iterator();
+
+    /**
+     * Returns the spliterator of the key-value pairs, which splits the hash table into ranges of
+     * its places, so the pairs can be processed in parallel.
+     *
+     * @return spliterator of the entries.
+     */
+    @Override
+    Spliterator<java.util.Map.Entry<K, V>> spliterator();
+
+    /**
+     * Returns the iterator of the keys.
+     *
+     * @return iterator of the keys.
+     */
+    default Iterator<K> keyIterator() {
+        Iterator<java.util.Map.Entry<K, V>> entries = iterator();
+        return new Iterator<K>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return entries.next().getKey();
+            }
+        };
+    }
+
+    /**
+     * Returns the iterator of the values.
+     *
+     * @return iterator of the values.
+     */
+    default Iterator<V> valueIterator() {
+        Iterator<java.util.Map.Entry<K, V>> entries = iterator();
+        return new Iterator<V>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return entries.next().getValue();
+            }
+        };
+    }
+
+    /**
+     * Returns the sequential stream of the key-value pairs.
+     *
+     * @return stream of the entries.
+     */
+    default Stream<java.util.Map.Entry<K, V>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns the parallel stream of the key-value pairs.
+     *
+     * @return parallel stream of the entries.
+     */
+    default Stream<java.util.Map.Entry<K, V>> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+}
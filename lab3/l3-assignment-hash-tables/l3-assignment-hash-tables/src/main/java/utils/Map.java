@@ -1,5 +1,8 @@
 package utils;
 
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 /**
  * The interface describes the hash map ADT.
  *
@@ -79,4 +82,113 @@ public interface Map<K, V> {
      * @return true if one or more values exist, else false
      */
     boolean containsValue(Object value);
+
+    /**
+     * Adds all the key-value pairs of the given map.
+     *
+     * @param map pairs to be added.
+     */
+    default void putAll(java.util.Map<? extends K, ? extends V> map) {
+        map.forEach(this::put);
+    }
+
+    /**
+     * Adds the key-value pairs keys[i]-values[i].
+     *
+     * @param keys   keys.
+     * @param values values, one for every key.
+     */
+    default void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Different number of keys and values in putAll(K[] keys, V[] values)");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            put(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Looks up the values of the keys: out[i] becomes the value associated with keys[i], or null.
+     *
+     * @param keys keys.
+     * @param out  array for the values, as long as keys.
+     */
+    default void getAll(K[] keys, V[] out) {
+        if (keys.length != out.length) {
+            throw new IllegalArgumentException("Different number of keys and values in getAll(K[] keys, V[] out)");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            out[i] = get(keys[i]);
+        }
+    }
+
+    /**
+     * Computes a new value for the key from the key and its current value (null, if the key does not
+     * exist). If the new value is null, the pair is removed; a value identical to the current one is
+     * left as it is. The function must not modify the map.
+     *
+     * @param key
+     * @param remappingFunction function computing the new value
+     * @return the new value associated with the key, or null if none.
+     */
+    default V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Key or function is null in compute(K key, BiFunction remappingFunction)");
+        }
+        V oldValue = get(key);
+        V newValue = remappingFunction.apply(key, oldValue);
+        if (newValue == null) {
+            if (oldValue != null) {
+                remove(key);
+            }
+        } else if (newValue != oldValue) {
+            put(key, newValue);
+        }
+        return newValue;
+    }
+
+    /**
+     * Adds the value computed from the key, if the key does not exist. Nothing is added if the value is null.
+     *
+     * @param key
+     * @param mappingFunction function computing the value
+     * @return the value associated with the key, or null if none.
+     */
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null) {
+            throw new IllegalArgumentException("Function is null in computeIfAbsent(K key, Function mappingFunction)");
+        }
+        return compute(key, (k, oldValue) -> oldValue != null ? oldValue : mappingFunction.apply(k));
+    }
+
+    /**
+     * Replaces the value of an existing key with the value computed from the key and the value.
+     * If the new value is null, the pair is removed.
+     *
+     * @param key
+     * @param remappingFunction function computing the new value
+     * @return the new value associated with the key, or null if none.
+     */
+    default V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Function is null in computeIfPresent(K key, BiFunction remappingFunction)");
+        }
+        return compute(key, (k, oldValue) -> oldValue == null ? null : remappingFunction.apply(k, oldValue));
+    }
+
+    /**
+     * Adds the value, if the key does not exist, otherwise replaces the current value with the value
+     * computed from it and the given value. If the computed value is null, the pair is removed.
+     *
+     * @param key
+     * @param value             value to be added or merged, not null
+     * @param remappingFunction function merging the current value with the given one
+     * @return the new value associated with the key, or null if none.
+     */
+    default V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null) {
+            throw new IllegalArgumentException("Value or function is null in merge(K key, V value, BiFunction remappingFunction)");
+        }
+        return compute(key, (k, oldValue) -> oldValue == null ? value : remappingFunction.apply(oldValue, value));
+    }
 }
@@ -0,0 +1,223 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Snapshot of the collision parameters of a hash table. The lengths are the chain lengths of
+ * separate chaining, or the probe lengths of the entries of open addressing: the number of places
+ * a lookup of the entry probes. The histogram is counted when the snapshot is taken, so the table
+ * records only its lookup and resize counters while it is used.
+ */
+public final class MapMetrics {
+
+    public enum LengthType {
+
+        CHAIN,
+        PROBE,
+        NONE
+    }
+
+    private final LengthType lengthType;
+    // lengthHistogram[i] - the number of chains of length i, or of entries with the probe length i
+    private final long[] lengthHistogram;
+    private final int size;
+    private final int capacity;
+    private final int tombstones;
+    private final double equalsCallsPerLookup;
+    private final int rehashes;
+    private final long lastResizeNanos;
+    private final long totalResizeNanos;
+
+    /**
+     * Creates the snapshot. The values that the hash table does not record are -1.
+     *
+     * @param lengthType           what the histogram counts
+     * @param lengthHistogram      the number of chains or entries of every length, indexed by length
+     * @param size                 the amount of key-value pairs
+     * @param capacity             the capacity of the hash table
+     * @param tombstones           the number of places of removed entries
+     * @param equalsCallsPerLookup key.equals() calls per lookup
+     * @param rehashes             the number of rehashes
+     * @param lastResizeNanos      duration of the last resize in nanoseconds
+     * @param totalResizeNanos     duration of all the resizes in nanoseconds
+     */
+    public MapMetrics(LengthType lengthType, long[] lengthHistogram, int size, int capacity, int tombstones,
+                      double equalsCallsPerLookup, int rehashes, long lastResizeNanos, long totalResizeNanos) {
+        this.lengthType = lengthType;
+        this.lengthHistogram = lengthHistogram.clone();
+        this.size = size;
+        this.capacity = capacity;
+        this.tombstones = tombstones;
+        this.equalsCallsPerLookup = equalsCallsPerLookup;
+        this.rehashes = rehashes;
+        this.lastResizeNanos = lastResizeNanos;
+        this.totalResizeNanos = totalResizeNanos;
+    }
+
+    /**
+     * Creates the snapshot of the parameters every EvaluableMap provides, without a histogram.
+     *
+     * @param map
+     * @return snapshot of the map parameters.
+     */
+    public static MapMetrics of(EvaluableMap<?, ?> map) {
+        return new MapMetrics(LengthType.NONE, new long[0], map.size(), map.getTableCapacity(), -1,
+                map.getEqualsCallsPerLookup(), map.getRehashesCounter(), -1, -1);
+    }
+
+    public LengthType getLengthType() {
+        return lengthType;
+    }
+
+    /**
+     * Returns the number of chains or entries of every length, indexed by length.
+     *
+     * @return length histogram.
+     */
+    public long[] getLengthHistogram() {
+        return lengthHistogram.clone();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getTombstones() {
+        return tombstones;
+    }
+
+    public double getEqualsCallsPerLookup() {
+        return equalsCallsPerLookup;
+    }
+
+    public int getRehashes() {
+        return rehashes;
+    }
+
+    public long getLastResizeNanos() {
+        return lastResizeNanos;
+    }
+
+    public long getTotalResizeNanos() {
+        return totalResizeNanos;
+    }
+
+    /**
+     * Returns the average length, -1 if there is no histogram.
+     *
+     * @return average chain or probe length.
+     */
+    public double getAverageLength() {
+        long count = 0;
+        long sum = 0;
+        for (int length = 0; length < lengthHistogram.length; length++) {
+            count += lengthHistogram[length];
+            sum += length * lengthHistogram[length];
+        }
+        return count == 0 ? -1 : (double) sum / count;
+    }
+
+    /**
+     * Returns the smallest length, which is not exceeded by the given percent of the chains or entries,
+     * -1 if there is no histogram.
+     *
+     * @param percent from 0 to 100
+     * @return percentile of the chain or probe lengths.
+     */
+    public int getLengthPercentile(double percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Illegal percent: " + percent);
+        }
+        long count = Arrays.stream(lengthHistogram).sum();
+        if (count == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percent / 100));
+        long seen = 0;
+        for (int length = 0; length < lengthHistogram.length; length++) {
+            seen += lengthHistogram[length];
+            if (seen >= rank) {
+                return length;
+            }
+        }
+        return lengthHistogram.length - 1;
+    }
+
+    /**
+     * Writes the snapshot as metric,value lines, the histogram as one line per length.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeCsv(Writer out) throws IOException {
+        String lengthName = lengthType.name().toLowerCase();
+        out.write("metric,value\n");
+        out.write("size," + size + "\n");
+        out.write("capacity," + capacity + "\n");
+        out.write("tombstones," + tombstones + "\n");
+        out.write("equalsCallsPerLookup," + equalsCallsPerLookup + "\n");
+        out.write("rehashes," + rehashes + "\n");
+        out.write("lastResizeNanos," + lastResizeNanos + "\n");
+        out.write("totalResizeNanos," + totalResizeNanos + "\n");
+        out.write(lengthName + "LengthAverage," + getAverageLength() + "\n");
+        out.write(lengthName + "LengthP50," + getLengthPercentile(50) + "\n");
+        out.write(lengthName + "LengthP90," + getLengthPercentile(90) + "\n");
+        out.write(lengthName + "LengthP99," + getLengthPercentile(99) + "\n");
+        out.write(lengthName + "LengthMax," + (lengthHistogram.length - 1) + "\n");
+        for (int length = 0; length < lengthHistogram.length; length++) {
+            if (lengthHistogram[length] != 0) {
+                out.write(lengthName + "Length[" + length + "]," + lengthHistogram[length] + "\n");
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot to the CSV file.
+     *
+     * @param filePath
+     * @throws IOException
+     */
+    public void writeCsv(String filePath) throws IOException {
+        try (Writer out = Files.newBufferedWriter(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            writeCsv(out);
+        }
+    }
+
+    /**
+     * Adds one chain or entry of the given length to the histogram, which is enlarged if needed.
+     *
+     * @param histogram
+     * @param length
+     * @return the histogram, or its enlarged copy.
+     */
+    static long[] count(long[] histogram, int length) {
+        if (length >= histogram.length) {
+            histogram = Arrays.copyOf(histogram, Math.max(length + 1, 2 * histogram.length));
+        }
+        histogram[length]++;
+        return histogram;
+    }
+
+    /**
+     * Cuts the histogram after its longest length.
+     *
+     * @param histogram
+     * @return the histogram without the trailing zeros.
+     */
+    static long[] trim(long[] histogram) {
+        int length = histogram.length;
+        while (length > 0 && histogram[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(histogram, length);
+    }
+}
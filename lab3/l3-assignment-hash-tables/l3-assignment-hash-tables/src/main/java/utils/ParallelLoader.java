@@ -0,0 +1,111 @@
+package utils;
+
+import demo.CarsGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Loads a text file with a value per line into a map, parsing the lines in parallel.
+ * The file is read sequentially in chunks of CHUNK_SIZE lines; every chunk is parsed by a task
+ * of a ForkJoinPool, and the parsed chunks are merged into the map by the calling thread in the
+ * order of the file, so the map itself is never accessed concurrently. A block of ids is reserved
+ * for every chunk as it is read, so a line gets the same id as with the sequential load.
+ */
+final class ParallelLoader {
+
+    static final int CHUNK_SIZE = 4096;
+    // Parsed chunks waiting for the merge, per thread; bounds the memory used by a large file
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelLoader() {
+    }
+
+    /**
+     * Loads the file into the map by putAll(K[] keys, V[] values) of every chunk.
+     *
+     * @param path                file with a value per line
+     * @param map                 the map, which is not cleared
+     * @param keyCreateFunction   function for creation of a key object from an id
+     * @param valueCreateFunction function for creation of a value object from a line
+     * @param parallelism         number of threads parsing the lines
+     * @throws IOException if the file cannot be read
+     */
+    static <K, V> void load(Path path,
+                            Map<K, V> map,
+                            Function<String, K> keyCreateFunction,
+                            Function<String, V> valueCreateFunction,
+                            int parallelism) throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Illegal parallelism: " + parallelism);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Queue<ForkJoinTask<Chunk<K, V>>> parsed = new ArrayDeque<>();
+        try (BufferedReader fReader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while ((line = fReader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_SIZE) {
+                    parsed.add(submit(pool, lines, keyCreateFunction, valueCreateFunction));
+                    lines = new ArrayList<>(CHUNK_SIZE);
+                    if (parsed.size() >= parallelism * CHUNKS_PER_THREAD) {
+                        parsed.remove().join().putInto(map);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                parsed.add(submit(pool, lines, keyCreateFunction, valueCreateFunction));
+            }
+            while (!parsed.isEmpty()) {
+                parsed.remove().join().putInto(map);
+            }
+        } finally {
+            parsed.forEach(task -> task.cancel(false));
+            pool.shutdown();
+        }
+    }
+
+    private static <K, V> ForkJoinTask<Chunk<K, V>> submit(ForkJoinPool pool,
+                                                          List<String> lines,
+                                                          Function<String, K> keyCreateFunction,
+                                                          Function<String, V> valueCreateFunction) {
+        int firstSerNr = CarsGenerator.reserveIds(lines.size());
+        return pool.submit(() -> new Chunk<>(lines, firstSerNr, keyCreateFunction, valueCreateFunction));
+    }
+
+    private static class Chunk<K, V> {
+
+        private final K[] keys;
+        private final V[] values;
+
+        @SuppressWarnings("unchecked")
+        Chunk(List<String> lines, int firstSerNr, Function<String, K> keyCreateFunction, Function<String, V> valueCreateFunction) {
+            keys = (K[]) new Object[lines.size()];
+            values = (V[]) new Object[lines.size()];
+            for (int i = 0; i < lines.size(); i++) {
+                keys[i] = keyCreateFunction.apply(CarsGenerator.id(firstSerNr + i));
+                values[i] = valueCreateFunction.apply(lines.get(i));
+            }
+        }
+
+        void putInto(Map<K, V> map) {
+            map.putAll(keys, values);
+        }
+    }
+}
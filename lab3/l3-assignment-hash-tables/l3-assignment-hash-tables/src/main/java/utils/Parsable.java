@@ -13,4 +13,13 @@ public interface Parsable<T> {
      * @param dataString
      */
     void parse(String dataString);
+
+    /**
+     * Forms a string from which parse(String) restores the object
+     *
+     * @return data string
+     */
+    default String toDataString() {
+        return toString();
+    }
 }
@@ -2,13 +2,21 @@ package utils;
 
 import demo.CarsGenerator;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -18,6 +26,9 @@ import static gui.Table.ARROW;
 
 public class ParsableHashMap<K, V extends Parsable<V>> extends HashMap<K, V> implements ParsableMap<K, V> {
 
+    // The first bytes of a snapshot file; 0x89 is not a text character, so a text file never starts so
+    public static final int SNAPSHOT_MAGIC = 0x89484D53;
+
     private final Function<String, K> keyCreateFunction;   // function for creation of a key object
     private final Function<String, V> valueCreateFunction; // function for creation of a value object
 
@@ -65,7 +76,8 @@ public class ParsableHashMap<K, V extends Parsable<V>> extends HashMap<K, V> imp
     }
 
     /**
-     * Creates a hash table form the filePath file data.
+     * Creates a hash table form the filePath file data. The file is either a text file with
+     * a value per line, or a snapshot written by save(String).
      *
      * @param filePath
      */
@@ -75,6 +87,10 @@ public class ParsableHashMap<K, V extends Parsable<V>> extends HashMap<K, V> imp
             return;
         }
         clear();
+        if (isSnapshot(Paths.get(filePath))) {
+            loadSnapshot(Paths.get(filePath));
+            return;
+        }
         try (BufferedReader fReader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8)) {
             fReader.lines()
                     .map(String::trim)
@@ -88,13 +104,112 @@ public class ParsableHashMap<K, V extends Parsable<V>> extends HashMap<K, V> imp
     }
 
     /**
-     * Saves the hash table as a string to the file fName for later use.
+     * Creates a hash table form the filePath file data, parsing the lines on parallelism threads.
+     * A snapshot is loaded as by load(String).
+     * The values are put in batches, in the order of the lines.
+     *
+     * @param filePath
+     * @param parallelism number of threads
+     */
+    @Override
+    public void loadParallel(String filePath, int parallelism) {
+        if (filePath == null || filePath.length() == 0) {
+            return;
+        }
+        clear();
+        if (isSnapshot(Paths.get(filePath))) {
+            loadSnapshot(Paths.get(filePath));
+            return;
+        }
+        try {
+            ParallelLoader.load(Paths.get(filePath), this,
+                    key -> create(keyCreateFunction, key, "No key-creation function defined"),
+                    value -> create(valueCreateFunction, value, "No value-creation function defined"),
+                    parallelism);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            Ks.ern("Suitable data file not found: " + e.getLocalizedMessage());
+        } catch (IOException e) {
+            Ks.ern("File reading error: " + e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Saves the hash table as a binary snapshot to the file filePath for later use.
+     * The snapshot consists of SNAPSHOT_MAGIC, the number of pairs and the pairs, every pair
+     * being the key and the data string of the value, each preceded by its length in bytes.
      *
      * @param filePath
      */
     @Override
     public void save(String filePath) {
-        throw new UnsupportedOperationException("Saving of hash table to the file currently is not supported");
+        if (filePath == null || filePath.length() == 0) {
+            return;
+        }
+        // written to a temporary file first, as the file may be mapped by this map, if it was loaded from it
+        Path path = Paths.get(filePath).toAbsolutePath();
+        try {
+            Path tempPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(size);
+                for (Node<K, V> node : table) {
+                    for (Node<K, V> n = node; n != null; n = n.next) {
+                        writeString(out, String.valueOf(n.key));
+                        writeString(out, n.getValue().toDataString());
+                    }
+                }
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Ks.ern("File writing error: " + e.getLocalizedMessage());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static boolean isSnapshot(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(magic, 0) == Integer.BYTES && magic.getInt(0) == SNAPSHOT_MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads a snapshot through a memory mapped buffer. Keys are created at once, as the table needs their
+     * hash codes, while every value is created from the buffer on its first access.
+     *
+     * @param path
+     */
+    private void loadSnapshot(Path path) {
+        ByteBuffer snapshot;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            Ks.ern("Suitable data file not found: " + e.getLocalizedMessage());
+            return;
+        } catch (IOException e) {
+            Ks.ern("File reading error: " + e.getLocalizedMessage());
+            return;
+        }
+
+        snapshot.getInt();
+        int count = snapshot.getInt();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            byte[] keyBytes = new byte[snapshot.getInt()];
+            snapshot.get(keyBytes);
+            K key = create(keyCreateFunction, new String(keyBytes, StandardCharsets.UTF_8), "No key-creation function defined");
+            int valueLength = snapshot.getInt();
+            addNode(new SnapshotNode<>(key.hashCode(), key, valueCreateFunction, snapshot, snapshot.position(), valueLength));
+            snapshot.position(snapshot.position() + valueLength);
+        }
     }
 
     /**
@@ -137,4 +252,36 @@ public class ParsableHashMap<K, V extends Parsable<V>> extends HashMap<K, V> imp
                 .map(f -> f.apply(data))
                 .orElseThrow(() -> new IllegalStateException(errorMessage));
     }
+
+    /**
+     * The node of a loaded snapshot. The value is created from the data string in the snapshot on the first access.
+     */
+    private static class SnapshotNode<K, V> extends Node<K, V> {
+
+        private Function<String, V> valueCreateFunction;
+        private ByteBuffer snapshot;
+        private final int offset;
+        private final int length;
+
+        private SnapshotNode(int hash, K key, Function<String, V> valueCreateFunction, ByteBuffer snapshot, int offset, int length) {
+            super(hash, key, null, null);
+            this.valueCreateFunction = valueCreateFunction;
+            this.snapshot = snapshot;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public V getValue() {
+            if (value == null) {
+                byte[] bytes = new byte[length];
+                snapshot.duplicate().position(offset).get(bytes);
+                value = create(valueCreateFunction, new String(bytes, StandardCharsets.UTF_8), "No value-creation function defined");
+                // the snapshot is not needed anymore, so it can be unmapped when all values are created
+                snapshot = null;
+                valueCreateFunction = null;
+            }
+            return value;
+        }
+    }
 }
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
@@ -90,6 +91,31 @@ public class ParsableHashMapOa<K, V extends Parsable<V>> extends HashMapOa<K, V>
         }
     }
 
+    /**
+     * Creates a hash table form the filePath file data, parsing the lines on parallelism threads.
+     * The values are put in batches, in the order of the lines.
+     *
+     * @param filePath
+     * @param parallelism number of threads
+     */
+    @Override
+    public void loadParallel(String filePath, int parallelism) {
+        if (filePath == null || filePath.length() == 0) {
+            return;
+        }
+        clear();
+        try {
+            ParallelLoader.load(Paths.get(filePath), this,
+                    key -> create(keyCreateFunction, key, "No key-creation function defined"),
+                    value -> create(valueCreateFunction, value, "No value-creation function defined"),
+                    parallelism);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            Ks.ern("Suitable data file not found: " + e.getLocalizedMessage());
+        } catch (IOException e) {
+            Ks.ern("File reading error: " + e.getLocalizedMessage());
+        }
+    }
+
     /**
      * Saves the hash table as a string to the file fName for later use.
      *
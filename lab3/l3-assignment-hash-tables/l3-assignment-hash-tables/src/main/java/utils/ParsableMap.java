@@ -10,6 +10,26 @@ public interface ParsableMap<K, V> extends EvaluableMap<K, V> {
 
     void load(String filePath);
 
+    /**
+     * Loads the file like load(String), parsing the lines on all available processors.
+     *
+     * @param filePath
+     */
+    default void loadParallel(String filePath) {
+        loadParallel(filePath, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Loads the file like load(String), parsing the lines on parallelism threads.
+     * The keys and the order of insertion are the same as with load(String).
+     *
+     * @param filePath
+     * @param parallelism number of threads
+     */
+    default void loadParallel(String filePath, int parallelism) {
+        load(filePath);
+    }
+
     void save(String filePath);
 
     void println(String delimiter);
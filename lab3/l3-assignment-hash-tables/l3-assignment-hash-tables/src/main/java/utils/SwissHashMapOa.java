@@ -0,0 +1,388 @@
+package utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The implementation of hash table based on open addressing in the style of SwissTable.
+ * Places are split into groups of 8. Every place has a control byte: EMPTY, DELETED, or,
+ * for an occupied place, a 7-bit fingerprint of the key hash. A lookup reads the 8 control bytes
+ * of a group as one long and finds all places with the matching fingerprint at once (SWAR),
+ * so key.equals() is called only for the places whose fingerprint matches.
+ * Groups are probed in triangular order, which visits every group of a power-of-two table.
+ * It is a class of its own, not a type of HashMapOa: the control bytes and the key and value arrays
+ * replace the Entry table, which HashMapOa shares with its subclasses.
+ *
+ * @param <K> key type of hash table
+ * @param <V> value type of hash table
+ */
+public class SwissHashMapOa<K, V> implements EvaluableMap<K, V> {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+    // SwissTable keeps groups up to 7/8 full
+    public static final float DEFAULT_LOAD_FACTOR = 0.875f;
+    public static final HashManager.HashType DEFAULT_HASH_TYPE = HashManager.HashType.DIVISION;
+
+    private static final int GROUP_WIDTH = 8;
+    private static final byte EMPTY = (byte) 0x80;
+    private static final byte DELETED = (byte) 0xFE;
+    private static final long LSB = 0x0101010101010101L;
+    private static final long MSB = 0x8080808080808080L;
+    private static final VarHandle GROUP = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Control bytes of the places
+    protected byte[] control;
+    // Keys of the hash table
+    protected Object[] keys;
+    // Values of the hash table
+    protected Object[] values;
+    // The amount of key-value pairs
+    protected int size = 0;
+    // Load factor
+    protected float loadFactor;
+    // Hash function, used to select the first group to probe
+    protected HashManager.HashType ht;
+    //--------------------------------------------------------------------------
+    //  Parameters of hash table
+    //--------------------------------------------------------------------------
+    // The amount of rehashes
+    protected int rehashesCounter = 0;
+    // The index of last updated element
+    protected int lastUpdated = 0;
+    // The number of occupied and deleted places in the hash table
+    protected int numberOfOccupied = 0;
+    // The number of lookups and of key.equals() calls made by them
+    protected long lookupsCounter = 0;
+    protected long equalsCounter = 0;
+
+    public SwissHashMapOa() {
+        this(DEFAULT_HASH_TYPE);
+    }
+
+    public SwissHashMapOa(HashManager.HashType ht) {
+        this(DEFAULT_INITIAL_CAPACITY, ht);
+    }
+
+    public SwissHashMapOa(int initialCapacity, HashManager.HashType ht) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, ht);
+    }
+
+    /**
+     * @param initialCapacity rounded up to a power of two, at least one group
+     * @param loadFactor      load factor
+     * @param ht              hash function selecting the first group to probe
+     */
+    public SwissHashMapOa(int initialCapacity, float loadFactor, HashManager.HashType ht) {
+        if (initialCapacity <= 0 || initialCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if ((loadFactor <= 0.0) || (loadFactor > 1.0)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        this.loadFactor = loadFactor;
+        this.ht = ht;
+        allocate(Math.max(GROUP_WIDTH, Integer.highestOneBit(initialCapacity - 1) << 1));
+    }
+
+    private void allocate(int capacity) {
+        control = new byte[capacity];
+        Arrays.fill(control, EMPTY);
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        numberOfOccupied = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(control, EMPTY);
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+        lastUpdated = 0;
+        rehashesCounter = 0;
+        numberOfOccupied = 0;
+        lookupsCounter = 0;
+        equalsCounter = 0;
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in contains(K key)");
+        }
+
+        return find(key, key.hashCode()) != -1;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key or value is null in put(K key, V value)");
+        }
+        int hashCode = key.hashCode();
+        int position = find(key, hashCode);
+        if (position != -1) {
+            values[position] = value;
+            lastUpdated = position;
+            return value;
+        }
+
+        position = findFree(hashCode);
+        if (position == -1) {
+            rehash();
+            position = findFree(hashCode);
+        }
+        if (control[position] == EMPTY) {
+            numberOfOccupied++;
+        }
+        control[position] = fingerprint(hashCode);
+        keys[position] = key;
+        values[position] = value;
+        size++;
+        lastUpdated = position;
+        if (numberOfOccupied > control.length * loadFactor) {
+            rehash();
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in get(K key)");
+        }
+
+        int position = find(key, key.hashCode());
+        return position == -1 ? null : (V) values[position];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in remove(K key)");
+        }
+
+        int position = find(key, key.hashCode());
+        if (position == -1) {
+            return null;
+        }
+
+        V value = (V) values[position];
+        keys[position] = null;
+        values[position] = null;
+        // A group with an empty place was never passed by a probe sequence,
+        // so the place can become empty again. Otherwise it has to stay DELETED.
+        int group = position & -GROUP_WIDTH;
+        if (matchEmpty((long) GROUP.get(control, group)) != 0) {
+            control[position] = EMPTY;
+            numberOfOccupied--;
+        } else {
+            control[position] = DELETED;
+        }
+        size--;
+        return value;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null in replace(K key, V oldValue, V newValue)");
+        }
+        if (newValue == null) {
+            throw new IllegalArgumentException("Value is null in replace(K key, V oldValue, V newValue)");
+        }
+
+        int position = find(key, key.hashCode());
+        if (position != -1 && values[position].equals(oldValue)) {
+            values[position] = newValue;
+            lastUpdated = position;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < control.length; i++) {
+            if (control[i] >= 0 && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < control.length; i++) {
+            if (control[i] >= 0) {
+                result.append(keys[i]).append('=').append(values[i]).append(System.lineSeparator());
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the position of the key or -1. Only the places whose control byte equals
+     * the fingerprint of the key are compared with equals().
+     */
+    private int find(Object key, int hashCode) {
+        lookupsCounter++;
+        byte fingerprint = fingerprint(hashCode);
+        int groupMask = control.length / GROUP_WIDTH - 1;
+        int group = firstGroup(hashCode);
+        for (int i = 0; i <= groupMask; i++) {
+            int base = group * GROUP_WIDTH;
+            long word = (long) GROUP.get(control, base);
+            for (long match = matchByte(word, fingerprint); match != 0; match &= match - 1) {
+                int position = base + (Long.numberOfTrailingZeros(match) >>> 3);
+                // matchByte may report a false positive above a true match
+                if (control[position] == fingerprint) {
+                    equalsCounter++;
+                    if (keys[position].equals(key)) {
+                        return position;
+                    }
+                }
+            }
+            if (matchEmpty(word) != 0) {
+                return -1;
+            }
+            group = (group + i + 1) & groupMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first empty or deleted position of the probe sequence, or -1 if the table is full.
+     */
+    private int findFree(int hashCode) {
+        int groupMask = control.length / GROUP_WIDTH - 1;
+        int group = firstGroup(hashCode);
+        for (int i = 0; i <= groupMask; i++) {
+            int base = group * GROUP_WIDTH;
+            long free = (long) GROUP.get(control, base) & MSB;
+            if (free != 0) {
+                return base + (Long.numberOfTrailingZeros(free) >>> 3);
+            }
+            group = (group + i + 1) & groupMask;
+        }
+        return -1;
+    }
+
+    /**
+     * Rebuilds the table. If most of the used places are deleted, the capacity is kept,
+     * otherwise it is doubled.
+     */
+    private void rehash() {
+        byte[] oldControl = control;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(size * 2 < oldControl.length * loadFactor ? oldControl.length : oldControl.length * 2);
+        for (int i = 0; i < oldControl.length; i++) {
+            if (oldControl[i] >= 0) {
+                int hashCode = oldKeys[i].hashCode();
+                int position = findFree(hashCode);
+                control[position] = fingerprint(hashCode);
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+                numberOfOccupied++;
+                lastUpdated = position;
+            }
+        }
+        rehashesCounter++;
+    }
+
+    private int firstGroup(int hashCode) {
+        return HashManager.hash(hashCode, control.length / GROUP_WIDTH, ht);
+    }
+
+    /**
+     * The fingerprint is taken from the top bits of the multiplied hash code, so it does not repeat
+     * the bits used for the group selection. The multiplier differs from the one of FIBONACCI hashing.
+     */
+    private static byte fingerprint(int hashCode) {
+        return (byte) ((hashCode * 0x85EBCA6B) >>> 25);
+    }
+
+    /**
+     * Sets the high bit of every byte of the word equal to b (a 7-bit value).
+     */
+    private static long matchByte(long word, byte b) {
+        long x = word ^ (LSB * b);
+        return (x - LSB) & ~x & MSB;
+    }
+
+    /**
+     * Sets the high bit of every EMPTY byte of the word. EMPTY is the only
+     * control byte with the high bit set and bit 1 cleared.
+     */
+    private static long matchEmpty(long word) {
+        return word & (~word << 6) & MSB;
+    }
+
+    /**
+     * Returns the number of rehashes occurred in the hash table.
+     *
+     * @return number of rehashes.
+     */
+    @Override
+    public int getRehashesCounter() {
+        return rehashesCounter;
+    }
+
+    /**
+     * Returns the capacity of hash table.
+     *
+     * @return capacity of hash table.
+     */
+    @Override
+    public int getTableCapacity() {
+        return control.length;
+    }
+
+    /**
+     * Returns the index of last update element of the hash table.
+     *
+     * @return the index of last update element of the hash table.
+     */
+    @Override
+    public int getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Returns the number of occupied and deleted places in the hash table.
+     *
+     * @return the number of occupied places in the hash table.
+     */
+    @Override
+    public int getNumberOfOccupied() {
+        return numberOfOccupied;
+    }
+
+    /**
+     * Returns the average number of key.equals() calls per lookup.
+     *
+     * @return equals() calls per lookup.
+     */
+    @Override
+    public double getEqualsCallsPerLookup() {
+        return lookupsCounter == 0 ? 0 : (double) equalsCounter / lookupsCounter;
+    }
+}
@@ -0,0 +1,183 @@
+package utils;
+
+import java.text.DecimalFormatSymbols;
+import java.util.InputMismatchException;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a data string into tokens delimited by whitespace, like java.util.Scanner, but without
+ * regular expressions: the numbers are read straight from the characters of the string.
+ * Only plain numbers are accepted: an optional minus sign, ASCII digits and, in a double,
+ * the decimal separator, by default the one of the default locale. Any other number, e.g. with grouping separators
+ * or an exponent, throws InputMismatchException, so Scanner can be used for such data instead.
+ */
+public class Tokenizer {
+
+    // Doubles with at most this many significant digits are exact in a long and a double
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // The decimal separator of the last default locale
+    private static volatile DecimalSeparator lastSeparator = new DecimalSeparator(null, '.');
+
+    private final CharSequence data;
+    private final char separator;
+    private int position = 0;
+    // The bounds of the current token
+    private int start;
+    private int end;
+
+    public Tokenizer(CharSequence data) {
+        this(data, decimalSeparator());
+    }
+
+    /**
+     * Creates a tokenizer reading doubles with the given decimal separator, whatever the default locale is.
+     *
+     * @param data
+     * @param separator decimal separator
+     */
+    public Tokenizer(CharSequence data, char separator) {
+        this.data = data;
+        this.separator = separator;
+    }
+
+    /**
+     * Returns the next token.
+     *
+     * @return the next token
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public String next() {
+        nextToken();
+        return data.subSequence(start, end).toString();
+    }
+
+    /**
+     * Returns the next token as an int.
+     *
+     * @return the next token as an int
+     * @throws InputMismatchException if the token is not a plain int
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public int nextInt() {
+        nextToken();
+        int i = start;
+        boolean negative = data.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw mismatch();
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            value = value * 10 + digit(data.charAt(i));
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw mismatch();
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw mismatch();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Returns the next token as a double. The value is the same as of Double.parseDouble.
+     *
+     * @return the next token as a double
+     * @throws InputMismatchException if the token is not a plain decimal number
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public double nextDouble() {
+        nextToken();
+        int i = start;
+        boolean negative = data.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;         // significant digits
+        int fractionDigits = 0;
+        int separatorAt = -1;
+        for (; i < end; i++) {
+            char c = data.charAt(i);
+            if (c == separator && separatorAt == -1) {
+                separatorAt = i;
+                continue;
+            }
+            mantissa = mantissa * 10 + digit(c);
+            if (mantissa != 0) {
+                digits++;
+            }
+            if (separatorAt != -1) {
+                fractionDigits++;
+            }
+        }
+        int length = end - start - (negative ? 1 : 0);
+        if (length == 0 || length == 1 && separatorAt != -1) {
+            throw mismatch();
+        }
+        if (digits <= MAX_EXACT_DIGITS && fractionDigits < POWERS_OF_TEN.length) {
+            // both are exact, so the quotient is rounded correctly
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        if (separator != '.') {
+            throw mismatch();
+        }
+        return Double.parseDouble(data.subSequence(start, end).toString());
+    }
+
+    private void nextToken() {
+        while (position < data.length() && Character.isWhitespace(data.charAt(position))) {
+            position++;
+        }
+        if (position == data.length()) {
+            throw new NoSuchElementException();
+        }
+        start = position;
+        while (position < data.length() && !Character.isWhitespace(data.charAt(position))) {
+            position++;
+        }
+        end = position;
+    }
+
+    private int digit(char c) {
+        if (c < '0' || c > '9') {
+            throw mismatch();
+        }
+        return c - '0';
+    }
+
+    private InputMismatchException mismatch() {
+        return new InputMismatchException(data.subSequence(start, end).toString());
+    }
+
+    private static char decimalSeparator() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        DecimalSeparator separator = lastSeparator;
+        if (separator.locale != locale) {
+            separator = new DecimalSeparator(locale, DecimalFormatSymbols.getInstance(locale).getDecimalSeparator());
+            lastSeparator = separator;
+        }
+        return separator.separator;
+    }
+
+    private static class DecimalSeparator {
+
+        private final Locale locale;
+        private final char separator;
+
+        DecimalSeparator(Locale locale, char separator) {
+            this.locale = locale;
+            this.separator = separator;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package utils;
+
+/**
+ * Reverse index of the values of a map: every value with the number of keys associated with it.
+ * The map updates the index as it adds, replaces and removes values, so containsValue() is a lookup
+ * in the index instead of a scan of the whole table. The values must not change their equals() and
+ * hashCode() while they are in the map.
+ */
+final class ValueIndex {
+
+    // Value -> number of keys, in an array, so a count is changed without a put()
+    private final HashMap<Object, int[]> counts = new HashMap<>(HashManager.HashType.JCF);
+
+    void add(Object value) {
+        int[] count = counts.get(value);
+        if (count == null) {
+            counts.put(value, new int[]{1});
+        } else {
+            count[0]++;
+        }
+    }
+
+    void remove(Object value) {
+        int[] count = counts.get(value);
+        if (--count[0] == 0) {
+            counts.remove(value);
+        }
+    }
+
+    void replace(Object oldValue, Object newValue) {
+        if (oldValue != newValue) {
+            remove(oldValue);
+            add(newValue);
+        }
+    }
+
+    // The map holds no null values, so null is not contained, as a scan of the table finds
+    boolean contains(Object value) {
+        return value != null && counts.contains(value);
+    }
+
+    void clear() {
+        counts.clear();
+    }
+}
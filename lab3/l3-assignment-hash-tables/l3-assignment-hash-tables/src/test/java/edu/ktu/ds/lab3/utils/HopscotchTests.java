@@ -0,0 +1,58 @@
+package edu.ktu.ds.lab3.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import utils.HashManager;
+import utils.HashMapOa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HopscotchTests {
+
+    // 2^6 strings of "Aa" and "BB" pairs, which all share one hashCode()
+    private static List<String> equalHashKeys() {
+        List<String> keys = new ArrayList<>();
+        for (int bits = 0; bits < 1 << 6; bits++) {
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < 6; i++) {
+                key.append((bits & 1 << i) == 0 ? "Aa" : "BB");
+            }
+            keys.add(key.toString());
+        }
+        return keys;
+    }
+
+    @Test
+    public void equalHashKeysOverflowTheNeighborhood() {
+        List<String> keys = equalHashKeys();
+        Assert.assertTrue(keys.size() > HashMapOa.HOPSCOTCH_NEIGHBORHOOD);
+        for (HashManager.HashType ht : HashManager.HashType.values()) {
+            HashMapOa<String, Integer> map = new HashMapOa<>(HashMapOa.DEFAULT_INITIAL_CAPACITY,
+                    HashMapOa.DEFAULT_LOAD_FACTOR, ht, HashMapOa.OpenAddressingType.HOPSCOTCH);
+            for (int i = 0; i < keys.size(); i++) {
+                Assert.assertEquals(keys.get(0).hashCode(), keys.get(i).hashCode());
+                map.put(keys.get(i), i);
+            }
+            Assert.assertEquals(keys.size(), map.size());
+            for (int i = 0; i < keys.size(); i++) {
+                Assert.assertEquals(Integer.valueOf(i), map.get(keys.get(i)));
+            }
+
+            // removed keys are gone, the others, in or beyond the neighborhood, are still found
+            for (int i = 0; i < keys.size(); i += 2) {
+                Assert.assertEquals(Integer.valueOf(i), map.remove(keys.get(i)));
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                Assert.assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(keys.get(i)));
+            }
+            for (int i = 0; i < keys.size(); i += 2) {
+                map.put(keys.get(i), -i);
+            }
+            Assert.assertEquals(keys.size(), map.size());
+            for (int i = 0; i < keys.size(); i++) {
+                Assert.assertEquals(Integer.valueOf(i % 2 == 0 ? -i : i), map.get(keys.get(i)));
+            }
+        }
+    }
+}
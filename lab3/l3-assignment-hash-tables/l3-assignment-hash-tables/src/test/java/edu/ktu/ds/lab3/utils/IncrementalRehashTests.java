@@ -0,0 +1,98 @@
+package edu.ktu.ds.lab3.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import utils.HashManager;
+import utils.HashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class IncrementalRehashTests {
+
+    // 2^6 strings of "Aa" and "BB" pairs, which all share one hashCode()
+    private static List<String> equalHashKeys() {
+        List<String> keys = new ArrayList<>();
+        for (int bits = 0; bits < 1 << 6; bits++) {
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < 6; i++) {
+                key.append((bits & 1 << i) == 0 ? "Aa" : "BB");
+            }
+            keys.add(key.toString());
+        }
+        return keys;
+    }
+
+    @Test
+    public void treeBinsSurviveIncrementalRehash() {
+        List<String> colliding = equalHashKeys();
+        HashMap<String, Integer> map = new HashMap<>(HashMap.DEFAULT_INITIAL_CAPACITY, HashMap.DEFAULT_LOAD_FACTOR,
+                HashManager.HashType.DIVISION, HashMap.RehashType.INCREMENTAL);
+        java.util.HashMap<String, Integer> expected = new java.util.HashMap<>();
+        Random random = new Random(2024);
+        int peakSize = 0;
+        int midMigrationOps = 0;
+        for (int round = 0; round < 10; round++) {
+            // the other keys grow the map, so rehashes start while the colliding keys form a tree bin
+            for (int step = 0; step < 2000; step++) {
+                String key = random.nextBoolean()
+                        ? colliding.get(random.nextInt(colliding.size()))
+                        : "k" + random.nextInt(500 * (round + 1));
+                if (map.getRehashProgress() < 100) {
+                    midMigrationOps++;
+                }
+                switch (random.nextInt(4)) {
+                    case 0:
+                        Assert.assertEquals(expected.remove(key), map.remove(key));
+                        break;
+                    case 1:
+                        Assert.assertEquals(expected.get(key), map.get(key));
+                        break;
+                    default:
+                        map.put(key, step);
+                        expected.put(key, step);
+                }
+                Assert.assertEquals(expected.size(), map.size());
+                peakSize = Math.max(peakSize, map.size());
+                Assert.assertTrue(map.getMaxChainSize() <= peakSize + 1);
+            }
+
+            // the bin shrinks below UNTREEIFY_THRESHOLD, possibly during a migration, and grows again
+            for (int i = 3; i < colliding.size(); i++) {
+                Assert.assertEquals(expected.remove(colliding.get(i)), map.remove(colliding.get(i)));
+            }
+            for (int i = 0; i < colliding.size(); i += 2) {
+                map.put(colliding.get(i), -i);
+                expected.put(colliding.get(i), -i);
+            }
+
+            // fresh keys start a rehash, so only the migration records the size of the colliding bin
+            int rehashes = map.getRehashesCounter();
+            for (int i = 0; map.getRehashesCounter() == rehashes; i++) {
+                map.put("r" + round + "-" + i, i);
+                expected.put("r" + round + "-" + i, i);
+            }
+            peakSize = Math.max(peakSize, map.size());
+
+            // iteration completes a pending migration
+            int count = 0;
+            for (Map.Entry<String, Integer> entry : map) {
+                Assert.assertEquals(expected.get(entry.getKey()), entry.getValue());
+                count++;
+            }
+            Assert.assertEquals(expected.size(), count);
+            Assert.assertEquals(100, map.getRehashProgress());
+            // the colliding keys share one chain or tree bin, whose size the moved chain kept;
+            // checked before the lookups below, as a missed lookup records the length of its chain too
+            int presentColliding = (int) colliding.stream().filter(expected::containsKey).count();
+            Assert.assertTrue(map.getMaxChainSize() >= presentColliding);
+            Assert.assertTrue(map.getMaxChainSize() <= peakSize + 1);
+            for (String key : colliding) {
+                Assert.assertEquals(expected.get(key), map.get(key));
+            }
+        }
+        Assert.assertTrue(midMigrationOps > 0);
+    }
+}
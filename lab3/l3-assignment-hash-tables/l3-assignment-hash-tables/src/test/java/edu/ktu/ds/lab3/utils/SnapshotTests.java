@@ -0,0 +1,62 @@
+package edu.ktu.ds.lab3.utils;
+
+import demo.Car;
+import demo.CarsGenerator;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import utils.HashManager;
+import utils.ParsableHashMap;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class SnapshotTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // the prices are written with '.', so they are read back the same under any default locale
+    @Test
+    public void snapshotRoundTrip() throws Exception {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            for (Locale locale : new Locale[]{Locale.US, Locale.forLanguageTag("lt-LT"), Locale.GERMANY}) {
+                Locale.setDefault(locale);
+                roundTrip(locale.toLanguageTag());
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private void roundTrip(String name) throws Exception {
+        ParsableHashMap<String, Car> saved = new ParsableHashMap<>(String::new, Car::new, HashManager.HashType.DIVISION);
+        List<String> ids = new ArrayList<>(CarsGenerator.generateShuffleIds(1000));
+        List<Car> cars = new ArrayList<>(CarsGenerator.generateShuffleCars(1000));
+        for (int i = 0; i < ids.size(); i++) {
+            saved.put(ids.get(i), cars.get(i));
+        }
+        File file = folder.newFile(name + ".snapshot");
+        saved.save(file.getPath());
+
+        ParsableHashMap<String, Car> loaded = new ParsableHashMap<>(String::new, Car::new, HashManager.HashType.DIVISION);
+        loaded.load(file.getPath());
+        Assert.assertEquals(saved.size(), loaded.size());
+        Assert.assertEquals(0, loaded.getRehashesCounter());
+        for (String id : ids) {
+            Assert.assertEquals(saved.get(id), loaded.get(id));
+        }
+
+        // a loaded map can be saved over its own snapshot
+        loaded.put(ids.get(0), cars.get(1));
+        loaded.save(file.getPath());
+        ParsableHashMap<String, Car> reloaded = new ParsableHashMap<>(String::new, Car::new, HashManager.HashType.DIVISION);
+        reloaded.load(file.getPath());
+        Assert.assertEquals(cars.get(1), reloaded.get(ids.get(0)));
+        Assert.assertEquals(saved.get(ids.get(999)), reloaded.get(ids.get(999)));
+    }
+}